@@ -0,0 +1,76 @@
+package at.ac.fhcampuswien.fhmdb;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// HomeController.applyFilters, the single filterBy* steps and the ranked search on synthetic catalogs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+public class FilterBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private HomeController controller;
+
+    @Setup
+    public void setUp() {
+        controller = new HomeController();
+        controller.allMovies = SyntheticMovies.create(size);
+        controller.applyFilters(null, "", null, null); // builds the indexes outside of the measurement
+        controller.prepareRanking().join();
+    }
+
+    @Benchmark
+    public List<Movie> applyFilters() {
+        return controller.applyFilters(Genre.DRAMA, "movie number 1", "1999", "5");
+    }
+
+    @Benchmark
+    public List<Movie> filterBySearchQuery() {
+        return controller.filterBySearchQuery("number 42");
+    }
+
+    @Benchmark
+    public List<Movie> rankedSearchWithTypos() {
+        return controller.searchMovies(null, "mvie numbr 42", null, null);
+    }
+
+    @Benchmark
+    public List<Movie> rankedSearchCommonWords() {
+        return controller.searchMovies(Genre.DRAMA, "some more words", null, null);
+    }
+
+    @Benchmark
+    public List<Movie> filterByGenre() {
+        return controller.filterByGenre(controller.allMovies, Genre.DRAMA);
+    }
+
+    @Benchmark
+    public List<Movie> filterByReleaseYear() {
+        return controller.filterByReleaseYear(controller.allMovies, "1999");
+    }
+
+    @Benchmark
+    public List<Movie> filterByRatingFrom() {
+        return controller.filterByRatingFrom(controller.allMovies, "7");
+    }
+}
@@ -0,0 +1,89 @@
+package at.ac.fhcampuswien.fhmdb;
+
+import at.ac.fhcampuswien.fhmdb.index.Parallel;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.SortState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Sequential against fork-join execution of the catalog scans, to find the size at which parallel starts to pay off.
+// The result for the smallest size where parallel wins is a good value for -Dfhmdb.parallelThreshold on that machine.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+public class ParallelBenchmark {
+
+    @Param({"10000", "30000", "100000", "300000", "1000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private HomeController controller;
+    private List<Movie> shuffled;
+    private int previousThreshold;
+
+    @Setup
+    public void setUp() {
+        previousThreshold = Parallel.getThreshold();
+        Parallel.setThreshold(parallel ? 0 : Integer.MAX_VALUE);
+        controller = new HomeController();
+        controller.allMovies = SyntheticMovies.create(size);
+        controller.filterBySearchQuery(""); // builds the indexes outside of the measurement
+        shuffled = new ArrayList<>(controller.allMovies);
+        Collections.shuffle(shuffled, new Random(7));
+    }
+
+    @TearDown
+    public void tearDown() {
+        Parallel.setThreshold(previousThreshold);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetOrder() {
+        controller.observableMovies.setAll(shuffled);
+    }
+
+    @Benchmark
+    public List<Movie> searchQuery() {
+        return controller.filterBySearchQuery("number 1");
+    }
+
+    @Benchmark
+    public List<Movie> filterByGenre() {
+        return controller.filterByGenre(controller.allMovies, Genre.DRAMA);
+    }
+
+    @Benchmark
+    public Set<Integer> getAllReleaseYears() {
+        return controller.getAllReleaseYears(controller.allMovies);
+    }
+
+    @Benchmark
+    public List<Movie> sortMovies() {
+        controller.sortMovies(SortState.ASCENDING);
+        return controller.observableMovies;
+    }
+}
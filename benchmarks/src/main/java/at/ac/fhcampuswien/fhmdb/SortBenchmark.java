@@ -0,0 +1,74 @@
+package at.ac.fhcampuswien.fhmdb;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.SortField;
+import at.ac.fhcampuswien.fhmdb.models.SortState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// HomeController.sortMovies from a shuffled list, and toggling the direction of an already sorted list
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+public class SortBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"TITLE", "RELEASE_YEAR", "RATING"})
+    public SortField sortField;
+
+    private HomeController controller;
+    private List<Movie> shuffled;
+
+    @Setup
+    public void setUp() {
+        controller = new HomeController();
+        controller.allMovies = SyntheticMovies.create(size);
+        controller.sortField = sortField;
+        shuffled = new ArrayList<>(controller.allMovies);
+        Collections.shuffle(shuffled, new Random(7));
+        controller.observableMovies.setAll(shuffled);
+        controller.sortMovies(SortState.ASCENDING); // computes the sort keys of the catalog outside of the measurement
+    }
+
+    // every invocation starts from the same shuffled list
+    @State(Scope.Benchmark)
+    public static class Shuffled {
+        @Setup(Level.Invocation)
+        public void resetOrder(SortBenchmark benchmark) {
+            benchmark.controller.observableMovies.setAll(benchmark.shuffled);
+        }
+    }
+
+    @Benchmark
+    public List<Movie> sortMovies(Shuffled shuffled) {
+        controller.sortMovies(SortState.ASCENDING);
+        return controller.observableMovies;
+    }
+
+    @Benchmark
+    public List<Movie> toggleDirection() {
+        controller.handleSortButtonClick();
+        return controller.observableMovies;
+    }
+}
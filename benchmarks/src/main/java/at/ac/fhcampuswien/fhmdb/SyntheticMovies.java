@@ -0,0 +1,35 @@
+package at.ac.fhcampuswien.fhmdb;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// reproducible catalogs of any size for benchmarks and the mock server: the same count always gives the same
+// movies with the same ids (the app's tests use the same generator, SyntheticCatalog)
+public class SyntheticMovies {
+
+    public static List<Movie> create(int count) {
+        Random random = new Random(42);
+        Genre[] genres = Genre.values();
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            movies.add(new Movie(id(i), "Movie " + i, "Description of movie number " + i + " with some more words in it.",
+                    List.of(genres[random.nextInt(genres.length)], genres[random.nextInt(genres.length)]),
+                    1950 + random.nextInt(75), "https://example.org/poster/" + i + ".jpg", 80 + random.nextInt(100),
+                    List.of("Director " + random.nextInt(2_000)), List.of("Writer " + random.nextInt(5_000)),
+                    List.of("Actor " + random.nextInt(20_000), "Actor " + random.nextInt(20_000)),
+                    random.nextInt(100) / 10.0));
+        }
+        return movies;
+    }
+
+    // the id of the i-th movie
+    public static String id(int i) {
+        return UUID.nameUUIDFromBytes(("movie-" + i).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
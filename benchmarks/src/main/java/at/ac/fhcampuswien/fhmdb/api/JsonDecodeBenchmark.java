@@ -0,0 +1,55 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// decoding a /movies response: the old String + Gson.fromJson path against MovieApi's streaming reader
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+public class JsonDecodeBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        payload = new Gson().toJson(SyntheticMovies.create(size)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Movie> stringAndFromJson() {
+        String json = new String(payload, StandardCharsets.UTF_8);
+        return new Gson().fromJson(json, new TypeToken<List<Movie>>() {}.getType());
+    }
+
+    @Benchmark
+    public List<Movie> streaming() throws IOException {
+        return MovieApi.readMovies(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8), null);
+    }
+}
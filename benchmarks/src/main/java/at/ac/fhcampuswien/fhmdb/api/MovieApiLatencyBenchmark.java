@@ -0,0 +1,95 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import at.ac.fhcampuswien.fhmdb.mock.MockMovieServer;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// End-to-end latency of MovieApi against a MockMovieServer with a synthetic catalog. Prints p50/p99/max for the first request
+// after warmUp(), for sequential requests and for concurrent ones. The client settings are the usual
+// -Dfhmdb.api.* properties, e.g. compare -Dfhmdb.api.compression=none with gzip, or a small keep-alive.
+// Run with: java -cp target/benchmarks.jar at.ac.fhcampuswien.fhmdb.api.MovieApiLatencyBenchmark [movies] [requests] [concurrency]
+public class MovieApiLatencyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int movies = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        MockMovieServer server = new MockMovieServer(SyntheticMovies.create(movies));
+        server.start(0);
+
+        // MovieApi reads these when it is loaded, so they have to be set before its first use
+        System.setProperty("fhmdb.api.baseUrl", server.getUrl());
+        System.setProperty("fhmdb.memoTtl", "0");
+        System.setProperty("fhmdb.cacheDir", Files.createTempDirectory("fhmdb-latency").toString());
+        System.out.println(MovieApi.getConfig());
+        System.out.printf("%d movies%n", movies);
+
+        MovieApi.warmUp().join();
+        print("first request", timeSequential(1, 0));
+        timeSequential(requests / 4, 1); // jit warm-up
+        print("sequential", timeSequential(requests, 2));
+        print("concurrent x" + concurrency, timeConcurrent(requests, concurrency));
+
+        server.stop();
+    }
+
+    // every request gets its own query, so that none is answered by a request that is already running
+    private static long[] timeSequential(int requests, int round) {
+        long[] nanos = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            MovieApi.getAllMovies(everything(round * requests + i), null, null, null);
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static long[] timeConcurrent(int requests, int concurrency) {
+        long[] nanos = new long[requests];
+        ExecutorService threads = Executors.newFixedThreadPool(concurrency);
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int worker = 0; worker < concurrency; worker++) {
+            int first = worker;
+            workers.add(CompletableFuture.runAsync(() -> {
+                for (int i = first; i < requests; i += concurrency) {
+                    long start = System.nanoTime();
+                    MovieApi.getAllMovies(everything(4 * requests + i), null, null, null);
+                    nanos[i] = System.nanoTime() - start;
+                }
+            }, threads));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).join();
+        threads.shutdown();
+        return nanos;
+    }
+
+    // a different spelling for every n (up to 2048) of a word that is in every synthetic movie, the search ignores case
+    static String everything(int n) {
+        char[] word = "description".toCharArray();
+        for (int i = 0; i < word.length; i++) {
+            if ((n >> i & 1) != 0) {
+                word[i] = Character.toUpperCase(word[i]);
+            }
+        }
+        return new String(word);
+    }
+
+    private static void print(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-16s n=%-5d p50=%8.2f ms  p99=%8.2f ms  max=%8.2f ms%n", name, sorted.length,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,132 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import at.ac.fhcampuswien.fhmdb.metrics.Histogram;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.mock.MockMovieServer;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Many MovieApi clients at once against a MockMovieServer: every client thread sends a random mix of queries
+// (whole catalog, search, genre, year and rating filters) for the given time, one after the other.
+// Reports throughput, how many requests came back empty or stale, and a latency histogram.
+// Latency and failures of the server are injected, so retries, the circuit breaker and the stale fallback
+// show up in the numbers; -Dfhmdb.api.* and -Dfhmdb.memoTtl work as usual (memoTtl defaults to 0 here).
+// Run with: java -cp target/benchmarks.jar at.ac.fhcampuswien.fhmdb.api.MovieApiLoadTest
+//           [movies] [clients] [seconds] [minLatencyMs] [maxLatencyMs] [failureRate]
+public class MovieApiLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int movies = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long minLatency = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        long maxLatency = args.length > 4 ? Long.parseLong(args[4]) : minLatency;
+        double failureRate = args.length > 5 ? Double.parseDouble(args[5]) : 0;
+
+        MockMovieServer server = new MockMovieServer(SyntheticMovies.create(movies));
+        server.start(0);
+        server.setLatency(minLatency, maxLatency);
+        server.setFailureRate(failureRate);
+
+        // MovieApi reads these when it is loaded, so they have to be set before its first use
+        System.setProperty("fhmdb.api.baseUrl", server.getUrl());
+        System.setProperty("fhmdb.memoTtl", System.getProperty("fhmdb.memoTtl", "0"));
+        System.setProperty("fhmdb.cacheDir", Files.createTempDirectory("fhmdb-load").toString());
+        System.out.println(MovieApi.getConfig());
+        System.out.printf("%d movies, %d clients, %d s, latency %d-%d ms, failure rate %.2f%n",
+                movies, clients, seconds, minLatency, maxLatency, failureRate);
+
+        run(clients, Math.max(1, seconds / 4)); // jit warm-up, not reported
+        Result result = run(clients, seconds);
+        result.print(seconds);
+        System.out.printf("server: %d requests, %d failed, %d not modified%n",
+                server.getRequestCount(), server.getFailureCount(), server.getNotModifiedCount());
+        if (Metrics.isEnabled()) { // -Dfhmdb.metrics=true splits the client side latency into its stages
+            System.out.print(Metrics.summary());
+        }
+        server.stop();
+    }
+
+    private static Result run(int clients, int seconds) throws InterruptedException {
+        Result result = new Result();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int client = 0; client < clients; client++) {
+            Random random = new Random(client);
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    List<Movie> movies = request(random);
+                    result.record(System.nanoTime() - start, movies);
+                }
+            }, "load-client-" + client);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return result;
+    }
+
+    // roughly what users do: mostly narrow filters and searches, sometimes the whole catalog
+    private static List<Movie> request(Random random) {
+        Genre[] genres = Genre.values();
+        switch (random.nextInt(5)) {
+            case 0:
+                return MovieApi.getAllMovies(MovieApiLatencyBenchmark.everything(random.nextInt(2048)), null, null, null);
+            case 1:
+                return MovieApi.getAllMovies("Movie " + random.nextInt(1_000), null, null, null);
+            case 2:
+                return MovieApi.getAllMovies(null, genres[random.nextInt(genres.length)], null, null);
+            case 3:
+                return MovieApi.getAllMovies(null, null, String.valueOf(1950 + random.nextInt(75)), null);
+            default:
+                return MovieApi.getAllMovies(null, genres[random.nextInt(genres.length)], null, String.valueOf(random.nextInt(10)));
+        }
+    }
+
+    // latencies in microseconds, and how many results came back empty or stale
+    static final class Result {
+        private final Histogram latencies = new Histogram();
+        private final AtomicLong empty = new AtomicLong();
+        private final AtomicLong stale = new AtomicLong();
+
+        void record(long nanos, List<Movie> movies) {
+            latencies.record(nanos / 1_000);
+            if (movies.isEmpty()) {
+                empty.incrementAndGet();
+            }
+            if (StaleMovies.staleSince(movies) != null) {
+                stale.incrementAndGet();
+            }
+        }
+
+        void print(int seconds) {
+            long total = latencies.getCount();
+            System.out.printf("%d requests, %.1f requests/s, %d empty, %d stale%n",
+                    total, (double) total / seconds, empty.get(), stale.get());
+            System.out.printf("p50=%.2f ms  p90=%.2f ms  p99=%.2f ms  p99.9=%.2f ms  max=%.2f ms%n",
+                    latencies.getPercentile(0.5) / 1e3, latencies.getPercentile(0.9) / 1e3,
+                    latencies.getPercentile(0.99) / 1e3, latencies.getPercentile(0.999) / 1e3, latencies.getMax() / 1e3);
+
+            // one row per power of two, bars relative to the fullest row
+            long[] rows = latencies.getPowerOfTwoCounts();
+            long fullest = Math.max(1, Arrays.stream(rows).max().orElse(1));
+            for (int row = 0; row < rows.length; row++) {
+                if (rows[row] > 0) {
+                    System.out.printf("%10.2f - %10.2f ms %8d %s%n", (1L << row) / 1e3, (2L << row) / 1e3, rows[row],
+                            "#".repeat((int) (50 * rows[row] / fullest)));
+                }
+            }
+        }
+    }
+}
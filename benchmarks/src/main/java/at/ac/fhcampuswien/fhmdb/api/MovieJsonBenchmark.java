@@ -0,0 +1,130 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Compares the old decoding path (body().string() + Gson.fromJson) with MovieApi.readMovies.
+// Reports peak heap and time until the first movie is available to the UI. Peak heap includes garbage
+// that was not collected yet, run with a small -Xmx to see how much each path really needs.
+// Run with: java -cp target/benchmarks.jar at.ac.fhcampuswien.fhmdb.api.MovieJsonBenchmark [movies] [MB/s]
+public class MovieJsonBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int megabytesPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : 100; // emulated download speed
+        byte[] payload = createPayload(count);
+        System.out.printf("%d movies, payload %.1f MB, download emulated at %d MB/s%n",
+                count, payload.length / 1e6, megabytesPerSecond);
+
+        for (int round = 0; round < 3; round++) { // first rounds warm up the JIT
+            run("string + fromJson", () -> decodeAsString(open(payload, megabytesPerSecond)));
+            run("streaming        ", () -> decodeStreaming(open(payload, megabytesPerSecond)));
+        }
+    }
+
+    private interface Decoder {
+        long decode() throws IOException; // returns nanos until the first movie was available
+    }
+
+    private static void run(String name, Decoder decoder) throws IOException {
+        System.gc();
+        long baseline = usedHeap();
+        resetPeakHeap();
+
+        long start = System.nanoTime();
+        long firstMovie = decoder.decode();
+        long total = System.nanoTime() - start;
+
+        System.out.printf("%s  first movie %7.1f ms  total %7.1f ms  peak heap +%6.1f MB%n",
+                name, (firstMovie - start) / 1e6, total / 1e6, (peakHeap() - baseline) / 1e6);
+    }
+
+    private static long decodeAsString(InputStream in) throws IOException {
+        String json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        List<Movie> movies = new Gson().fromJson(json, new TypeToken<List<Movie>>() {}.getType());
+        long firstMovie = System.nanoTime(); // nothing can be shown before the whole list is parsed
+        blackhole(movies);
+        return firstMovie;
+    }
+
+    private static long decodeStreaming(InputStream in) throws IOException {
+        long[] firstMovie = {0};
+        List<Movie> movies = MovieApi.readMovies(new InputStreamReader(in, StandardCharsets.UTF_8), batch -> {
+            if (firstMovie[0] == 0) {
+                firstMovie[0] = System.nanoTime();
+            }
+        });
+        blackhole(movies);
+        return firstMovie[0];
+    }
+
+    private static byte[] createPayload(int count) {
+        return new Gson().toJson(SyntheticMovies.create(count)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream open(byte[] payload, int megabytesPerSecond) {
+        long bytesPerMilli = megabytesPerSecond * 1_000L;
+        return new FilterInputStream(new ByteArrayInputStream(payload)) {
+            private final long start = System.nanoTime();
+            private long delivered;
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                throttle();
+                int read = super.read(buffer, offset, (int) Math.min(length, 16 * 1024));
+                if (read > 0) {
+                    delivered += read;
+                }
+                return read;
+            }
+
+            private void throttle() {
+                long due = start + delivered / bytesPerMilli * 1_000_000L;
+                while (System.nanoTime() < due) {
+                    Thread.onSpinWait();
+                }
+            }
+        };
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static volatile Object sink;
+
+    private static void blackhole(Object value) {
+        sink = value;
+    }
+}
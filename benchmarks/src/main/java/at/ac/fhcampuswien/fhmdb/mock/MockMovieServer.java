@@ -0,0 +1,318 @@
+package at.ac.fhcampuswien.fhmdb.mock;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogDelta;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogSync;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+// A stand-in for the /movies endpoint on localhost, so MovieApi can be tested and measured without the course
+// server. It filters its catalog with the same parameters (query, genre, releaseYear, rating), answers
+// with gzip when asked to and supports ETag revalidation. Latency and failures can be injected at any time.
+// The catalog can be replaced while running (setCatalog), and <url>/changes?since=<ETag of the whole catalog>
+// answers what changed since then, in the shape of CatalogChanges; the course server has no such feed.
+// Point the app at it with -Dfhmdb.api.baseUrl=<getUrl()>, or run it on its own:
+// java at.ac.fhcampuswien.fhmdb.mock.MockMovieServer [movies] [port]
+public class MockMovieServer {
+    private static final int MAX_CACHED_RESPONSES = 32;
+
+    private final CatalogSync catalog = new CatalogSync();
+    private final String instance = Long.toHexString(ThreadLocalRandom.current().nextLong()); // part of every ETag
+    private volatile int version; // part of every ETag, counts the catalog replacements
+    private final Map<String, Integer> changedIn = new HashMap<>(); // movie id -> version that added or changed it
+    private final Map<String, Integer> removedIn = new HashMap<>(); // movie id -> version that removed it
+    private final Gson gson = new Gson();
+    private final LinkedHashMap<String, byte[]> responses = new LinkedHashMap<>(16, 0.75f, true); // query -> json
+    private HttpServer server;
+    private ExecutorService threads;
+
+    private volatile long minLatencyMillis;
+    private volatile long maxLatencyMillis;
+    private volatile double failureRate;
+    private volatile int failureStatus = 503;
+    private final AtomicInteger failNext = new AtomicInteger();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+
+    public MockMovieServer(List<Movie> catalog) {
+        this.catalog.update(catalog, null);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int movies = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        MockMovieServer server = new MockMovieServer(SyntheticMovies.create(movies));
+        server.start(port);
+        System.out.println("Serving " + movies + " movies at " + server.getUrl());
+    }
+
+    // port 0 picks a free one, see getUrl
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/movies", this::handle);
+        threads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mock-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(threads);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            threads.shutdownNow();
+            server = null;
+        }
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/movies";
+    }
+
+    // every response is delayed by a random time between min and max
+    public void setLatency(long minMillis, long maxMillis) {
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = Math.max(minMillis, maxMillis);
+    }
+
+    // share of requests (0 to 1) that are answered with the failure status instead of movies
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    public void setFailureStatus(int failureStatus) {
+        this.failureStatus = failureStatus;
+    }
+
+    // the next count requests fail, whatever the failure rate
+    public void failNext(int count) {
+        failNext.set(count);
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    // serves movies from now on, the change feed reports how they differ from the ones served before
+    public synchronized void setCatalog(List<Movie> movies) {
+        CatalogDelta delta = catalog.update(movies, null);
+        int next = version + 1;
+        for (Movie movie : delta.getUpserted()) {
+            changedIn.put(movie.getId(), next);
+            removedIn.remove(movie.getId());
+        }
+        for (String id : delta.getRemovedIds()) {
+            removedIn.put(id, next);
+            changedIn.remove(id);
+        }
+        version = next;
+    }
+
+    public List<Movie> getCatalog() {
+        return catalog.getIndex().getMovies();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            pause();
+            if (failNext.getAndUpdate(count -> Math.max(0, count - 1)) > 0
+                    || ThreadLocalRandom.current().nextDouble() < failureRate) {
+                failures.incrementAndGet();
+                exchange.sendResponseHeaders(failureStatus, -1);
+                return;
+            }
+
+            String query = exchange.getRequestURI().getRawQuery();
+            if (exchange.getRequestURI().getPath().endsWith("/changes")) {
+                byte[] changes = changes(parameters(query).get("since"));
+                if (changes == null) {
+                    exchange.sendResponseHeaders(410, -1); // not one of our versions, the client downloads everything
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, changes.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(changes);
+                }
+                return;
+            }
+
+            int version = this.version;
+            String etag = etag(version, query);
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            byte[] json;
+            try {
+                json = response(version, query);
+            } catch (IllegalArgumentException e) { // unknown genre or not a number
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, gzip ? 0 : json.length); // 0 = chunked
+            OutputStream body = gzip ? new GZIPOutputStream(exchange.getResponseBody(), 64 * 1024) : exchange.getResponseBody();
+            try (body) {
+                body.write(json);
+            }
+        } catch (IOException e) {
+            // the client went away, e.g. a cancelled request or one that only needed the first window
+        }
+    }
+
+    private void pause() {
+        long max = maxLatencyMillis;
+        if (max <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(minLatencyMillis, max + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String etag(int version, String query) {
+        return "\"" + instance + "." + version + "-" + Integer.toHexString(query == null ? 0 : query.hashCode()) + "\"";
+    }
+
+    // the movies added, changed and removed after the version in the ETag since, null if that is not one of ours
+    private synchronized byte[] changes(String since) throws IOException {
+        String prefix = "\"" + instance + ".";
+        if (since == null || !since.startsWith(prefix) || since.indexOf('-', prefix.length()) < 0) {
+            return null;
+        }
+        int sinceVersion;
+        try {
+            sinceVersion = Integer.parseInt(since.substring(prefix.length(), since.indexOf('-', prefix.length())));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            writer.name("version").value(etag(version, null));
+            writer.name("changed").beginArray();
+            for (Movie movie : getCatalog()) {
+                if (changedIn.getOrDefault(movie.getId(), 0) > sinceVersion) {
+                    gson.toJson(movie, Movie.class, writer);
+                }
+            }
+            writer.endArray();
+            writer.name("removed").beginArray();
+            for (Map.Entry<String, Integer> removed : removedIn.entrySet()) {
+                if (removed.getValue() > sinceVersion) {
+                    writer.value(removed.getKey());
+                }
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        return json.toByteArray();
+    }
+
+    // the filtered catalog as json, recent answers are kept
+    private byte[] response(int version, String query) throws IOException {
+        Map<String, String> parameters = parameters(query);
+        String search = parameters.get("query");
+        String genre = parameters.get("genre");
+        String releaseYear = parameters.get("releaseYear");
+        String rating = parameters.get("rating");
+        // the search ignores case, so queries that only differ in case share an answer
+        String key = version + "|" + (search != null ? search.toLowerCase(Locale.ROOT) : "") + "|" + genre + "|" + releaseYear + "|" + rating;
+        synchronized (responses) {
+            byte[] cached = responses.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        List<Movie> movies = catalog.getIndex().filter(search, genre != null ? Genre.valueOf(genre) : null,
+                releaseYear != null ? Integer.valueOf(releaseYear) : null, rating != null ? Double.valueOf(rating) : null);
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (Movie movie : movies) {
+                gson.toJson(movie, Movie.class, writer);
+            }
+            writer.endArray();
+        }
+        byte[] bytes = json.toByteArray();
+        synchronized (responses) {
+            responses.put(key, bytes);
+            Iterator<byte[]> leastRecentlyUsed = responses.values().iterator();
+            while (responses.size() > MAX_CACHED_RESPONSES) {
+                leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+            }
+        }
+        return bytes;
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && equals < pair.length() - 1) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,67 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+// Retained heap per movie for a parsed catalog: the previous Movie layout (plain fields, Gson lists,
+// UUID strings), the compact Movie and the columnar catalog.
+// Run with: java -cp target/benchmarks.jar at.ac.fhcampuswien.fhmdb.models.MovieHeapReport [movies]
+public class MovieHeapReport {
+
+    // field layout of Movie before it was made compact
+    static class LegacyMovie {
+        String id;
+        String title;
+        String description;
+        List<Genre> genres;
+        int releaseYear;
+        String imgUrl;
+        int lengthInMinutes;
+        List<String> directors;
+        List<String> writers;
+        List<String> mainCast;
+        double rating;
+    }
+
+    private static Object retained;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String json = new Gson().toJson(SyntheticMovies.create(count));
+
+        long legacy = measure(() -> new Gson().fromJson(json, new TypeToken<List<LegacyMovie>>() {}.getType()));
+        long compact = measure(() -> new Gson().fromJson(json, new TypeToken<List<Movie>>() {}.getType()));
+        List<Movie> movies = new Gson().fromJson(json, new TypeToken<List<Movie>>() {}.getType());
+        long columnar = measure(() -> new ColumnarMovies(movies)); // shares strings and name lists with movies
+
+        System.out.printf("%d movies%n", count);
+        System.out.printf("before (legacy layout)  %6.0f bytes/movie%n", legacy / (double) count);
+        System.out.printf("compact Movie           %6.0f bytes/movie%n", compact / (double) count);
+        System.out.printf("columnar, on top of it  %6.0f bytes/movie (primitive columns and references only)%n",
+                columnar / (double) count);
+    }
+
+    private interface Allocation {
+        Object run();
+    }
+
+    private static long measure(Allocation allocation) {
+        retained = null;
+        long before = usedAfterGc();
+        retained = allocation.run();
+        long after = usedAfterGc();
+        retained = null;
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
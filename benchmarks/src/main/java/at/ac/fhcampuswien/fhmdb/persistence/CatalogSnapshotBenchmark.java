@@ -0,0 +1,47 @@
+package at.ac.fhcampuswien.fhmdb.persistence;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import at.ac.fhcampuswien.fhmdb.index.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Time until the first frame can show movies: a cold start has to download and parse the JSON
+// (the download is emulated with the given round trip and bandwidth), a warm start maps the snapshot.
+// Both paths include building the indexes, which has to happen before the list is shown.
+// Run with: java -cp target/benchmarks.jar at.ac.fhcampuswien.fhmdb.persistence.CatalogSnapshotBenchmark [movies] [rtt ms] [MB/s]
+public class CatalogSnapshotBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int roundTripMillis = args.length > 1 ? Integer.parseInt(args[1]) : 80;
+        int megabytesPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        List<Movie> catalog = SyntheticMovies.create(count);
+        byte[] json = new Gson().toJson(catalog).getBytes(StandardCharsets.UTF_8);
+        Path file = Files.createTempFile("catalog", ".bin");
+        CatalogSnapshot.write(catalog, file);
+        System.out.printf("%d movies, JSON %.1f MB, snapshot %.1f MB%n", count, json.length / 1e6, Files.size(file) / 1e6);
+
+        double transferMillis = roundTripMillis + json.length / (megabytesPerSecond * 1e3);
+        for (int round = 0; round < 5; round++) { // first rounds warm up the JIT
+            long start = System.nanoTime();
+            List<Movie> parsed = new Gson().fromJson(new String(json, StandardCharsets.UTF_8), new TypeToken<List<Movie>>() {}.getType());
+            new MovieIndex(parsed);
+            double coldMillis = (System.nanoTime() - start) / 1e6 + transferMillis;
+
+            start = System.nanoTime();
+            new MovieIndex(CatalogSnapshot.read(file));
+            double warmMillis = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("cold network %8.1f ms (%.1f ms transfer)   warm snapshot %8.1f ms%n",
+                    coldMillis, transferMillis, warmMillis);
+        }
+        Files.delete(file);
+    }
+}
@@ -0,0 +1,100 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import at.ac.fhcampuswien.fhmdb.index.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.metrics.Histogram;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.jfoenix.controls.JFXListView;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+// Applies the same sequence of filter results to a list view once with setAll and once with update and
+// counts, per filter change, the layout passes of the list view and the cells that were bound to a movie again.
+// Needs a display. Run with: java -cp target/benchmarks.jar at.ac.fhcampuswien.fhmdb.ui.ListUpdateBenchmark [rows]
+public class ListUpdateBenchmark extends Application {
+    private static int rows = 100_000;
+
+    private int layoutPasses;
+
+    public static void main(String[] args) {
+        if (args.length > 0) rows = Integer.parseInt(args[0]);
+        // the cells are counted by their cell.update timer, which only records with metrics on
+        System.setProperty("fhmdb.metrics", "true");
+        System.setProperty("fhmdb.metrics.exportSeconds", "0");
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) {
+        List<Movie> catalog = SyntheticMovies.create(rows);
+        MovieIndex index = new MovieIndex(catalog);
+
+        // the steps a user takes while narrowing down and widening a search again
+        List<List<Movie>> results = new ArrayList<>();
+        results.add(catalog);
+        results.add(index.filter("", null, null, 5.0));
+        results.add(index.filter("", null, null, 7.0));
+        results.add(index.filter("", Genre.DRAMA, null, 7.0));
+        results.add(index.filter("", Genre.DRAMA, null, 5.0));
+        results.add(index.filter("number 1", Genre.DRAMA, null, 5.0));
+        results.add(index.filter("number 12", Genre.DRAMA, null, 5.0));
+        results.add(index.filter("number 1", Genre.DRAMA, null, 5.0));
+        results.add(catalog);
+
+        ReversibleObservableList<Movie> items = new ReversibleObservableList<>();
+        JFXListView<Movie> listView = new JFXListView<>() {
+            @Override
+            protected void layoutChildren() {
+                layoutPasses++;
+                super.layoutChildren();
+            }
+        };
+        listView.setItems(items);
+        listView.setCellFactory(view -> new MovieCell(new HashSet<>()));
+        stage.setScene(new Scene(listView, 890, 620));
+        Histogram cellUpdates = Metrics.timer("cell.update").getHistogram();
+        stage.show();
+
+        new AnimationTimer() {
+            private int step = -1; // one step per frame, so every change gets its own layout pulse
+            private boolean diff;
+            private long cellsAtStart;
+            private int layoutsAtStart;
+
+            @Override
+            public void handle(long now) {
+                if (step >= 0) {
+                    System.out.printf("%-7s step %d -> %6d rows: %2d layout passes, %3d cells updated%n",
+                            diff ? "update" : "setAll", step, items.size(),
+                            layoutPasses - layoutsAtStart, cellUpdates.getCount() - cellsAtStart);
+                }
+                step++;
+                if (step == results.size()) {
+                    if (diff) {
+                        stop();
+                        Platform.exit();
+                        return;
+                    }
+                    diff = true;
+                    step = 0;
+                }
+                cellsAtStart = cellUpdates.getCount();
+                layoutsAtStart = layoutPasses;
+                if (diff) {
+                    items.update(results.get(step), Movie::getId);
+                } else {
+                    items.setAll(results.get(step));
+                }
+            }
+        }.start();
+    }
+}
@@ -0,0 +1,89 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.jfoenix.controls.JFXListView;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.scene.Scene;
+import javafx.scene.control.skin.VirtualFlow;
+import javafx.stage.Stage;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+
+// Scrolls a list of 100k movies with MovieCell at a constant speed and reports frame times and the
+// allocation rate of the FX thread. Needs a display.
+// Run with: java -cp target/benchmarks.jar at.ac.fhcampuswien.fhmdb.ui.MovieCellScrollBenchmark [rows] [frames] [px/frame]
+public class MovieCellScrollBenchmark extends Application {
+    private static final int WARMUP_FRAMES = 120;
+
+    private static int rows = 100_000;
+    private static int frames = 1_200;
+    private static double pixelsPerFrame = 80;
+
+    public static void main(String[] args) {
+        if (args.length > 0) rows = Integer.parseInt(args[0]);
+        if (args.length > 1) frames = Integer.parseInt(args[1]);
+        if (args.length > 2) pixelsPerFrame = Double.parseDouble(args[2]);
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) {
+        JFXListView<Movie> listView = new JFXListView<>();
+        listView.setItems(FXCollections.observableArrayList(SyntheticMovies.create(rows)));
+        HashSet<String> expanded = new HashSet<>();
+        listView.setCellFactory(view -> new MovieCell(expanded));
+        stage.setScene(new Scene(listView, 890, 620));
+        stage.show();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long fxThread = Thread.currentThread().getId();
+        long[] frameNanos = new long[frames];
+
+        new AnimationTimer() {
+            private int frame = -WARMUP_FRAMES;
+            private long last;
+            private long allocatedAtStart;
+            private long startNanos;
+
+            @Override
+            public void handle(long now) {
+                VirtualFlow<?> flow = (VirtualFlow<?>) listView.lookup(".virtual-flow");
+                if (flow == null) {
+                    return;
+                }
+                if (frame == 0) {
+                    allocatedAtStart = threads.getThreadAllocatedBytes(fxThread);
+                    startNanos = now;
+                } else if (frame > 0) {
+                    frameNanos[frame - 1] = now - last;
+                }
+                last = now;
+                flow.scrollPixels(pixelsPerFrame);
+
+                if (++frame > frames) {
+                    stop();
+                    double seconds = (now - startNanos) / 1e9;
+                    double allocatedMegabytes = (threads.getThreadAllocatedBytes(fxThread) - allocatedAtStart) / 1e6;
+                    report(frameNanos, seconds, allocatedMegabytes);
+                    Platform.exit();
+                }
+            }
+        }.start();
+    }
+
+    private static void report(long[] frameNanos, double seconds, double allocatedMegabytes) {
+        long[] sorted = frameNanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%d rows, %d frames scrolled at %.0f px/frame%n", rows, frames, pixelsPerFrame);
+        System.out.printf("frame time  p50 %.2f ms  p99 %.2f ms  max %.2f ms%n",
+                sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6, sorted[sorted.length - 1] / 1e6);
+        System.out.printf("FX thread allocation  %.1f MB/s  (%.1f KB/frame)%n",
+                allocatedMegabytes / seconds, allocatedMegabytes * 1e3 / frameNanos.length);
+    }
+}
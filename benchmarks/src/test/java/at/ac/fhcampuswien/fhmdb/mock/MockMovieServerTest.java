@@ -0,0 +1,145 @@
+package at.ac.fhcampuswien.fhmdb.mock;
+
+import at.ac.fhcampuswien.fhmdb.SyntheticMovies;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockMovieServerTest {
+
+    private final OkHttpClient client = new OkHttpClient();
+    private final List<Movie> catalog = SyntheticMovies.create(500);
+    private MockMovieServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new MockMovieServer(catalog);
+        server.start(0);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    private List<Movie> get(String parameters) throws IOException {
+        try (Response response = client.newCall(new Request.Builder().url(server.getUrl() + parameters).build()).execute()) {
+            assertEquals(200, response.code());
+            return new Gson().fromJson(response.body().string(), new TypeToken<List<Movie>>() {}.getType());
+        }
+    }
+
+
+
+    @Test
+    void filters_with_the_same_parameters_as_the_course_server() throws IOException {
+        // Given
+        long expected = catalog.stream()
+                .filter(movie -> movie.hasGenre(Genre.DRAMA) && movie.getRating() >= 5)
+                .count();
+
+        // When
+        List<Movie> movies = get("?genre=DRAMA&rating=5&");
+
+        // Then
+        assertEquals(expected, movies.size());
+        assertEquals(catalog.size(), get("").size());
+        assertEquals(SyntheticMovies.id(0), get("?query=number%200%20with&").get(0).getId());
+    }
+
+
+
+    @Test
+    void injected_failures_are_answered_with_the_failure_status() throws IOException {
+        // Given
+        server.failNext(2);
+        Request request = new Request.Builder().url(server.getUrl()).build();
+
+        // When
+        int first;
+        int second;
+        try (Response response = client.newCall(request).execute()) {
+            first = response.code();
+        }
+        try (Response response = client.newCall(request).execute()) {
+            second = response.code();
+        }
+
+        // Then
+        assertEquals(503, first);
+        assertEquals(503, second);
+        assertEquals(catalog.size(), get("").size());
+        assertEquals(2, server.getFailureCount());
+    }
+
+
+
+    @Test
+    void unchanged_response_is_revalidated_with_its_etag() throws IOException {
+        // Given
+        String etag;
+        try (Response response = client.newCall(new Request.Builder().url(server.getUrl()).build()).execute()) {
+            etag = response.header("ETag");
+        }
+
+        // When
+        int code;
+        try (Response response = client.newCall(new Request.Builder().url(server.getUrl())
+                .header("If-None-Match", etag).build()).execute()) {
+            code = response.code();
+        }
+
+        // Then
+        assertNotNull(etag);
+        assertEquals(304, code);
+        assertEquals(1, server.getNotModifiedCount());
+    }
+
+
+
+    @Test
+    void change_feed_reports_what_differs_from_the_catalog_of_an_etag() throws IOException {
+        // Given
+        String etag;
+        try (Response response = client.newCall(new Request.Builder().url(server.getUrl()).build()).execute()) {
+            etag = response.header("ETag");
+        }
+        List<Movie> edited = new ArrayList<>(catalog.subList(1, catalog.size()));
+        Movie first = catalog.get(1);
+        edited.set(0, new Movie(first.getId(), "Renamed", first.getDescription(), first.getGenres(), first.getReleaseYear(),
+                first.getImgUrl(), first.getLengthInMinutes(), first.getDirectors(), first.getWriters(), first.getMainCast(),
+                first.getRating()));
+        server.setCatalog(edited);
+
+        // When
+        JsonObject changes;
+        try (Response response = client.newCall(new Request.Builder()
+                .url(HttpUrl.get(server.getUrl() + "/changes").newBuilder().addQueryParameter("since", etag).build())
+                .build()).execute()) {
+            changes = JsonParser.parseString(response.body().string()).getAsJsonObject();
+        }
+
+        // Then
+        assertEquals(1, changes.getAsJsonArray("changed").size());
+        assertEquals("Renamed", changes.getAsJsonArray("changed").get(0).getAsJsonObject().get("title").getAsString());
+        assertEquals(SyntheticMovies.id(0), changes.getAsJsonArray("removed").get(0).getAsString());
+        assertNotEquals(etag, changes.get("version").getAsString());
+        assertEquals(edited.size(), get("").size());
+    }
+}
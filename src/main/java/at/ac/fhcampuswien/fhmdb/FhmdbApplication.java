@@ -1,8 +1,16 @@
 package at.ac.fhcampuswien.fhmdb;
 
+import at.ac.fhcampuswien.fhmdb.api.MovieApi;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.ui.MetricsOverlay;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
@@ -11,8 +19,24 @@ import java.util.Objects;
 public class FhmdbApplication extends Application {
     @Override
     public void start(Stage stage) throws IOException {
+        MovieApi.warmUp(); // connects to the server while the stage is being built
         FXMLLoader fxmlLoader = new FXMLLoader(FhmdbApplication.class.getResource("home-view.fxml"));
-        Scene scene = new Scene(fxmlLoader.load(), 890, 620);
+        Parent root = fxmlLoader.load();
+        Scene scene;
+        if (Metrics.isEnabled()) {
+            // F12 shows the timers, counters and histograms on top of the app
+            MetricsOverlay overlay = new MetricsOverlay();
+            StackPane layers = new StackPane(root, overlay);
+            StackPane.setAlignment(overlay, Pos.TOP_RIGHT);
+            scene = new Scene(layers, 890, 620);
+            scene.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+                if (event.getCode() == KeyCode.F12) {
+                    overlay.toggle();
+                }
+            });
+        } else {
+            scene = new Scene(root, 890, 620);
+        }
         scene.getStylesheets().add(Objects.requireNonNull(FhmdbApplication.class.getResource("styles.css")).toExternalForm());
         stage.setTitle("FHMDb");
         stage.setScene(scene);
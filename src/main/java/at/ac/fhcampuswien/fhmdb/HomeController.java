@@ -1,23 +1,56 @@
 package at.ac.fhcampuswien.fhmdb;
 
+import at.ac.fhcampuswien.fhmdb.api.CatalogChanges;
 import at.ac.fhcampuswien.fhmdb.api.MovieApi;
+import at.ac.fhcampuswien.fhmdb.api.MoviePager;
+import at.ac.fhcampuswien.fhmdb.api.StaleMovies;
+import at.ac.fhcampuswien.fhmdb.index.FacetCounts;
+import at.ac.fhcampuswien.fhmdb.index.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.index.Parallel;
+import at.ac.fhcampuswien.fhmdb.index.SortKeys;
+import at.ac.fhcampuswien.fhmdb.events.CatalogLoadEvent;
+import at.ac.fhcampuswien.fhmdb.events.SortEvent;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.metrics.Timer;
 import at.ac.fhcampuswien.fhmdb.models.Genre;
 import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.QueryMode;
+import at.ac.fhcampuswien.fhmdb.models.SortField;
 import at.ac.fhcampuswien.fhmdb.models.SortState;
+import at.ac.fhcampuswien.fhmdb.persistence.MovieStore;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogDelta;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogSync;
 import at.ac.fhcampuswien.fhmdb.ui.MovieCell;
+import at.ac.fhcampuswien.fhmdb.ui.ReversibleObservableList;
 import com.jfoenix.controls.JFXButton;
 import com.jfoenix.controls.JFXComboBox;
 import com.jfoenix.controls.JFXListView;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
+import javafx.scene.control.skin.ComboBoxListViewSkin;
 
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.ToIntBiFunction;
 
 public class HomeController implements Initializable {
     @FXML
@@ -41,12 +74,67 @@ public class HomeController implements Initializable {
     @FXML
     public JFXButton sortButton;
 
+    @FXML
+    public JFXComboBox<SortField> sortFieldComboBox;
+
+    @FXML
+    public Label statusLabel;
+
     public List<Movie> allMovies;
 
-    protected final ObservableList<Movie> observableMovies = FXCollections.observableArrayList();   // automatically updates corresponding UI elements when underlying data changes
+    protected final ReversibleObservableList<Movie> observableMovies = new ReversibleObservableList<>();   // automatically updates corresponding UI elements when underlying data changes
 
     protected SortState sortState;
 
+    protected SortField sortField = SortField.TITLE;
+
+    // what observableMovies was last sorted by, a direction toggle on the same content only reverses the view
+    private SortField sortedBy;
+    private int sortedVersion = -1;
+    private List<Movie> shownCatalog; // allMovies as it was when the list was set to it, in catalog order
+    private int shownCatalogVersion = -1; // the list version right after that
+
+    private static final Timer sortTimer = Metrics.timer("sort");
+    private static final Timer listUpdateTimer = Metrics.timer("filter.listUpdate");
+
+    private final Set<String> expandedMovieIds = new HashSet<>(); // movies whose details are shown in the list
+    private FacetCounts facetCounts; // for the drop down that is open, taken when it opens
+
+    // configurable with -Dfhmdb.queryMode=REMOTE|LOCAL|SNAPSHOT and -Dfhmdb.snapshotMaxAge=<seconds>
+    protected QueryMode queryMode = parseQueryMode(System.getProperty("fhmdb.queryMode"));
+    protected Duration snapshotMaxAge = Duration.ofSeconds(Long.getLong("fhmdb.snapshotMaxAge", 300));
+    // text queries show the best matches first and tolerate typos, see -Dfhmdb.rankedSearch
+    protected boolean rankedSearch = Boolean.parseBoolean(System.getProperty("fhmdb.rankedSearch", "true"));
+    // live search starts once typing pauses for this long
+    protected Duration searchDebounce = Duration.ofMillis(Long.getLong("fhmdb.searchDebounce", 150));
+
+    private Instant catalogLoadedAt; // when allMovies was last fetched from the server
+    private CompletableFuture<Void> catalogLoad; // running or last catalog load
+
+    protected Path storeFile = MovieStore.defaultFile(); // catalog of the last run, see -Dfhmdb.storeFile
+    private CompletableFuture<MovieStore> store; // opened on start, null inside if there is none (yet)
+
+    private MovieIndex movieIndex; // search and facet indexes, built once and then updated with each catalog delta
+    private List<Movie> indexedMovies; // allMovies as movieIndex was last applied, the index may be ahead while a delta is applied
+    private final CatalogSync catalogSync = new CatalogSync(); // the loaded catalog by id, turns a newer one into a delta
+
+    private CompletableFuture<List<Movie>> pendingRequest; // newest request, older ones get cancelled
+
+    private boolean showingPartialCatalog; // true while the initial catalog streams into the list view
+
+    // REMOTE mode and ranked queries show results window by window while scrolling, see -Dfhmdb.pageSize
+    protected int pageSize = Integer.getInteger("fhmdb.pageSize", 200);
+    private MoviePager pager; // the query whose result is shown right now
+    private boolean loadingMore; // the next window is on its way
+
+    private PauseTransition searchPause; // restarted on every key stroke in the search field
+    // local searches run here one after another, a search superseded before it started is skipped
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "movie-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
 
@@ -54,9 +142,26 @@ public class HomeController implements Initializable {
 
         // initialize UI stuff
         movieListView.setItems(observableMovies);   // set data of observable list to list view
-        movieListView.setCellFactory(movieListView -> new MovieCell()); // use custom cell factory to display data
+        movieListView.setCellFactory(movieListView -> {
+            MovieCell cell = new MovieCell(expandedMovieIds); // use custom cell factory to display data
+            cell.indexProperty().addListener((observable, oldIndex, newIndex) -> loadMoreIfNear(newIndex.intValue()));
+            return cell;
+        });
         sortButton.setPrefWidth(75);
 
+        // sort field comboBox
+        sortFieldComboBox.getItems().setAll(SortField.values());
+        sortFieldComboBox.setValue(sortField);
+        sortFieldComboBox.valueProperty().addListener((observable, oldField, newField) -> {
+            sortField = newField;
+            sortMovies(sortState);
+        });
+
+        // search as you type
+        searchPause = new PauseTransition(javafx.util.Duration.millis(searchDebounce.toMillis()));
+        searchPause.setOnFinished(event -> handleSearchInput());
+        searchField.textProperty().addListener((observable, oldText, newText) -> searchPause.playFromStart());
+
         // initialize ComboBox with all Genres + "" for selection without filter
         genreComboBox.setPromptText("Filter by Genre");
         genreComboBox.getItems().clear();
@@ -64,22 +169,12 @@ public class HomeController implements Initializable {
         for (Genre genre : Genre.values()) {
             genreComboBox.getItems().add(genre.toString());
         }
+        showFacetCounts(genreComboBox, (counts, item) -> counts.getGenreCount(Genre.valueOf((String) item)));
 
         // releaseYear comboBox
         releaseYearComboBox.setPromptText("Filter by Release Year");
-        releaseYearComboBox.getItems().clear();
-        releaseYearComboBox.getItems().add("");
-
-        // get all ReleaseYears of allMovies
-        Set<Integer> allReleaseYears = getAllReleaseYears(allMovies);
-
-        // sort years
-        List<Integer> sortedYears = allReleaseYears.stream()
-                .sorted()
-                .toList();
-
-        // add sortedYears to ComboBox after empty String
-        releaseYearComboBox.getItems().addAll(FXCollections.observableArrayList(sortedYears));
+        updateReleaseYearComboBox();
+        showFacetCounts(releaseYearComboBox, (counts, item) -> counts.getYearCount((Integer) item));
 
 
         // rating comboBox
@@ -95,24 +190,238 @@ public class HomeController implements Initializable {
 
 
     public void initializeState () {
-        // initialize movies and SortState
-        allMovies = MovieApi.getAllMovies();
+        // initialize movies and SortState, the catalog is loaded in the background
+        allMovies = new ArrayList<>();
         sortState = SortState.NONE;
         observableMovies.setAll(allMovies);
+        showingPartialCatalog = true;
+
+        store = CompletableFuture.supplyAsync(this::openStore);
+        showStoredPage();
+        CompletableFuture<List<Movie>> catalog = loadCatalog(true);
+        if (queryMode == QueryMode.REMOTE) {
+            // a filter fired before the catalog arrives supersedes it in the list view, the copy keeps allMovies loading
+            requestMovies(catalog.copy(), movies -> {
+                showingPartialCatalog = false;
+                showFreshness(movies);
+                updateObservableMovies(movies);
+            });
+        }
+    }
+
+    // Cold start: shows the first page of the catalog stored by an earlier run until the server answered,
+    // only that page is read from the store. Further pages follow while scrolling (outside of REMOTE mode).
+    private void showStoredPage() {
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        event.begin();
+        MoviePager stored = storePager("", null, null, null);
+        stored.next().thenAcceptAsync(movies -> {
+            if (movies.isEmpty() || !showingPartialCatalog || !observableMovies.isEmpty()) {
+                stored.cancel();
+                return; // nothing stored yet or the server was faster
+            }
+            showingPartialCatalog = false;
+            updateObservableMovies(movies);
+            if (queryMode != QueryMode.REMOTE && pager == null) {
+                pager = stored;
+                loadingMore = false;
+            }
+            event.source = "store";
+            event.movies = movies.size();
+            event.commit();
+        }, Platform::runLater);
+    }
+
+    // the whole stored catalog, for when the server cannot be reached
+    private void showStoredCatalog() {
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        event.begin();
+        store.thenApply(movieStore -> movieStore == null ? new ArrayList<Movie>() : movieStore.readAll())
+                .thenApply(catalogSync::initialize)
+                .thenAcceptAsync(index -> {
+                    if (index == null || !allMovies.isEmpty()) {
+                        return; // nothing stored or a catalog arrived in the meantime
+                    }
+                    applyCatalog(index);
+                    event.source = "store";
+                    event.movies = index.getMovies().size();
+                    event.commit();
+                    if (queryMode == QueryMode.REMOTE && showingPartialCatalog) {
+                        showingPartialCatalog = false;
+                        updateObservableMovies(allMovies);
+                    }
+                }, Platform::runLater);
+    }
+
+    // a query on the stored catalog, handed out window by window like one to the server
+    private MoviePager storePager(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        CompletableFuture<MovieStore.Query> result = store.thenApplyAsync(movieStore -> movieStore == null ? null
+                : movieStore.query(query, genre, releaseYear, ratingFrom), searchExecutor);
+        return new MoviePager((offset, limit) -> result.thenApplyAsync(stored -> stored == null ? new ArrayList<>()
+                : stored.window(offset, limit), searchExecutor), pageSize);
+    }
+
+    // filters fired before the catalog is loaded are answered by the indexes of the store
+    private void showStoredResult(String query, Genre genre, String releaseYear, String rating) {
+        if (pager != null) {
+            pager.cancel();
+        }
+        pager = storePager(query, genre, parseReleaseYear(releaseYear), parseRating(rating));
+        loadingMore = false;
+        requestMovies(pager.next(), this::updateObservableMovies);
+    }
+
+    // fetches the full catalog in the background; the first one is indexed, later ones are compared with
+    // the loaded catalog and only the differences are applied
+    private CompletableFuture<List<Movie>> loadCatalog(boolean streamIntoList) {
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        event.begin();
+        // first rows are shown while the rest of the catalog is still downloading
+        CompletableFuture<List<Movie>> catalog = MovieApi.getAllMoviesAsync(null, null, null, null,
+                !streamIntoList ? null : batch -> Platform.runLater(() -> {
+                    if (showingPartialCatalog) {
+                        observableMovies.addAll(batch);
+                    }
+                }));
+        catalog.thenAcceptAsync(this::writeStore);
+        // comparing and indexing happen on the background thread as well
+        catalogLoad = catalog.thenApply(movies -> movies.isEmpty() ? null : catalogSync.update(movies, MovieApi.getCatalogVersion()))
+                .thenAcceptAsync(delta -> {
+                    if (delta == null) {
+                        if (allMovies.isEmpty()) {
+                            showStoredCatalog(); // failed request and nothing loaded yet, fall back to the store
+                        }
+                        return; // failed request, keep showing the catalog we already have
+                    }
+                    catalogLoadedAt = Instant.now();
+                    if (queryMode != QueryMode.REMOTE) {
+                        showFreshness(catalog.join());
+                    }
+                    applyCatalog(catalogSync.getIndex());
+                    commit(event, StaleMovies.staleSince(catalog.join()) != null ? "stale" : "server", delta);
+                }, Platform::runLater);
+        return catalog;
+    }
+
+    // asks the server only for what changed since the loaded catalog, a server without a change feed
+    // sends the whole catalog again, which is then compared with the loaded one
+    private void refreshCatalog() {
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        event.begin();
+        CompletableFuture<CatalogChanges> changes = MovieApi.getChangesAsync(catalogSync.getVersion());
+        catalogLoad = changes.thenApply(feed -> feed == null ? null : catalogSync.apply(feed))
+                .thenAcceptAsync(delta -> {
+                    if (delta == null) {
+                        loadCatalog(false);
+                        return;
+                    }
+                    catalogLoadedAt = Instant.now();
+                    applyCatalog(catalogSync.getIndex());
+                    if (queryMode != QueryMode.REMOTE) {
+                        showFreshness(allMovies);
+                    }
+                    commit(event, "changes", delta);
+                    if (!delta.isEmpty()) {
+                        List<Movie> catalog = allMovies;
+                        CompletableFuture.runAsync(() -> writeStore(catalog));
+                    }
+                }, Platform::runLater);
+    }
+
+    private void commit(CatalogLoadEvent event, String source, CatalogDelta delta) {
+        event.source = source;
+        event.movies = allMovies.size();
+        event.added = delta.getAdded().size();
+        event.changed = delta.getChanged().size();
+        event.removed = delta.getRemovedIds().size();
+        event.commit();
+    }
+
+    private MovieStore openStore() {
+        if (!Files.exists(storeFile)) {
+            return null;
+        }
+        try {
+            return MovieStore.open(storeFile);
+        } catch (IOException e) {
+            System.err.println("Movie store could not be opened: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeStore(List<Movie> movies) {
+        if (movies.isEmpty() || StaleMovies.staleSince(movies) != null) {
+            return; // failed request, keep the last good catalog
+        }
+        try {
+            MovieStore.write(movies, storeFile);
+        } catch (IOException e) {
+            System.err.println("Movie store could not be written: " + e.getMessage());
+        }
+    }
+
+    // replaces allMovies and its indexes, outside of REMOTE mode the current filter selection is applied to it
+    private void applyCatalog(MovieIndex index) {
+        allMovies = index.getMovies();
+        movieIndex = index;
+        indexedMovies = allMovies;
+        if (rankedSearch && queryMode != QueryMode.REMOTE) {
+            index.prepareRanking(); // in the background, ranked queries fall back to filtering until it is done
+        }
+        updateReleaseYearComboBox();
+        if (queryMode != QueryMode.REMOTE) {
+            showingPartialCatalog = false;
+            cancelPager(); // windows from the store, the whole catalog is here now
+            cancelPendingRequest();
+            showSearchResult(parseGenre(getSelectedGenre()), getSearchQuery(), getSelectedReleaseYear(), getSelectedRating());
+        }
+    }
+
+    private boolean isCatalogStale() {
+        if (catalogLoad != null && !catalogLoad.isDone()) {
+            return false; // already being refreshed
+        }
+        return catalogLoadedAt == null || allMovies.isEmpty()
+                || catalogLoadedAt.plus(snapshotMaxAge).isBefore(Instant.now());
     }
 
     public void initializeStateWithDummyMovies () {
         // initialize movies and SortState
         allMovies = Movie.initializeMovies();
+        movieIndex = new MovieIndex(allMovies);
+        indexedMovies = allMovies;
         sortState = SortState.NONE;
         observableMovies.setAll(allMovies);
     }
 
+    private void updateReleaseYearComboBox() {
+        if (releaseYearComboBox == null) {
+            return;
+        }
+        releaseYearComboBox.getItems().clear();
+        releaseYearComboBox.getItems().add("");
+
+        // get all ReleaseYears of allMovies
+        Set<Integer> allReleaseYears = getAllReleaseYears(allMovies);
+
+        // sort years
+        List<Integer> sortedYears = allReleaseYears.stream()
+                .sorted()
+                .toList();
+
+        // add sortedYears to ComboBox after empty String
+        releaseYearComboBox.getItems().addAll(FXCollections.observableArrayList(sortedYears));
+    }
+
     public Set<Integer> getAllReleaseYears(List<Movie> allMovies) {
-        return allMovies.stream()
-                .map(Movie::getReleaseYear)
-                .filter(year -> year > 0)
-                .collect(Collectors.toSet());
+        return Parallel.collect(allMovies, HashSet::new, (years, movie) -> {
+            if (movie.getReleaseYear() > 0) {
+                years.add(movie.getReleaseYear());
+            }
+        }, (years, more) -> {
+            years.addAll(more);
+            return years;
+        });
     }
 
     @FXML
@@ -153,8 +462,115 @@ public class HomeController implements Initializable {
         String query = getSearchQuery();
         String releaseYear = getSelectedReleaseYear();
         String rating = getSelectedRating();
-        List<Movie> filteredMovies = MovieApi.getAllMovies(query, selectedGenre, releaseYear, rating);
-        updateObservableMovies(filteredMovies);
+        showingPartialCatalog = false;
+
+        if (queryMode == QueryMode.REMOTE) {
+            showPagedResult(query, selectedGenre, releaseYear, rating);
+            return;
+        }
+
+        // answered from the loaded catalog, the server is only asked again when the snapshot is stale
+        cancelPendingRequest();
+        if (allMovies.isEmpty() && store != null) {
+            showStoredResult(query, selectedGenre, releaseYear, rating);
+        } else {
+            showSearchResult(selectedGenre, query, releaseYear, rating);
+        }
+        if (queryMode == QueryMode.SNAPSHOT && isCatalogStale()) {
+            refreshCatalog();
+        }
+    }
+
+    // called when typing in the search field paused, searches in the background with the current selection
+    public void handleSearchInput() {
+        Genre genre = parseGenre(getSelectedGenre());
+        String query = getSearchQuery();
+        String releaseYear = getSelectedReleaseYear();
+        String rating = getSelectedRating();
+        showingPartialCatalog = false;
+
+        if (queryMode == QueryMode.REMOTE) {
+            showPagedResult(query, genre, releaseYear, rating);
+            return;
+        }
+
+        if (allMovies.isEmpty() && store != null) {
+            showStoredResult(query, genre, releaseYear, rating);
+            return;
+        }
+
+        Integer year = parseReleaseYear(releaseYear);
+        Double ratingFrom = parseRating(rating);
+        if (isRanked(query)) {
+            showRankedResult(query, genre, year, ratingFrom);
+            return;
+        }
+        // the index refines the result of the previous query when the new one extends it
+        MovieIndex index = getMovieIndex();
+        cancelPager();
+        requestMovies(CompletableFuture.supplyAsync(() -> index.filter(query, genre, year, ratingFrom), searchExecutor),
+                this::updateObservableMovies);
+    }
+
+    // shows the first window of the query result, further windows follow while scrolling (loadMoreIfNear)
+    private void showPagedResult(String query, Genre genre, String releaseYear, String rating) {
+        if (pager != null) {
+            pager.cancel();
+        }
+        pager = new MoviePager(query, genre, releaseYear, rating, pageSize);
+        loadingMore = false;
+        requestMovies(pager.next(), movies -> {
+            showFreshness(movies);
+            updateObservableMovies(movies);
+        });
+    }
+
+    // called for every row the list view shows, requests the next window when the last half window comes into view;
+    // a sorted list gets no more windows, sorting them in would move the rows the user is looking at
+    private void loadMoreIfNear(int index) {
+        if (pager == null || loadingMore || pendingRequest != null || !pager.hasMore()
+                || (sortState != null && sortState != SortState.NONE)
+                || index < observableMovies.size() - pageSize / 2) {
+            return;
+        }
+        MoviePager current = pager;
+        loadingMore = true;
+        current.next().thenAcceptAsync(movies -> {
+            if (current == pager) {
+                loadingMore = false;
+                observableMovies.addAll(movies);
+            }
+        }, Platform::runLater);
+    }
+
+    // tells the user when the server could not be reached and the list shows what it delivered earlier
+    private void showFreshness(List<Movie> movies) {
+        if (statusLabel == null) {
+            return;
+        }
+        Instant staleSince = StaleMovies.staleSince(movies);
+        statusLabel.setText(staleSince == null ? "" : "Offline - showing results from "
+                + DateTimeFormatter.ofPattern("dd.MM. HH:mm").withZone(ZoneId.systemDefault()).format(staleSince));
+    }
+
+    // cancels the request still in flight and applies the result of the new one on the FX thread,
+    // as long as no newer request was fired in the meantime
+    private void requestMovies(CompletableFuture<List<Movie>> request, Consumer<List<Movie>> onLoaded) {
+        cancelPendingRequest();
+        pendingRequest = request;
+        request.thenAcceptAsync(movies -> {
+            if (request == pendingRequest) {
+                pendingRequest = null;
+                onLoaded.accept(movies);
+            }
+        }, Platform::runLater);
+    }
+
+    private void cancelPendingRequest() {
+        if (pendingRequest != null) {
+            pendingRequest.cancel(true);
+            pendingRequest = null;
+        }
     }
 
     private String getSelectedGenre() {
@@ -192,35 +608,161 @@ public class HomeController implements Initializable {
 
 
     public List<Movie> applyFilters(Genre genre, String query, String releaseYear, String rating) {
-        List<Movie> moviesFiltered = filterBySearchQuery(query);
-        filterByGenre(moviesFiltered, genre);
-        filterByReleaseYear(moviesFiltered, releaseYear);
-        filterByRatingFrom(moviesFiltered, rating);
-        return moviesFiltered;
+        return getMovieIndex().filter(query, genre, parseReleaseYear(releaseYear), parseRating(rating));
+    }
+
+    // what the list shows first for the selection: the filter result, or for a text query the first window of its best matches
+    public List<Movie> searchMovies(Genre genre, String query, String releaseYear, String rating) {
+        if (!isRanked(query)) {
+            return applyFilters(genre, query, releaseYear, rating);
+        }
+        return getMovieIndex().rank(query, genre, parseReleaseYear(releaseYear), parseRating(rating), pageSize);
+    }
+
+    // a filter without text is applied right away, a text query is ranked on the search thread like live search
+    private void showSearchResult(Genre genre, String query, String releaseYear, String rating) {
+        if (isRanked(query)) {
+            showRankedResult(query, genre, parseReleaseYear(releaseYear), parseRating(rating));
+            return;
+        }
+        cancelPager();
+        updateObservableMovies(applyFilters(genre, query, releaseYear, rating));
+    }
+
+    // the best matches window by window like a server query, so none of them is cut off; all windows come
+    // from the same ranking, even when it is rebuilt while scrolling
+    private void showRankedResult(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        MovieIndex.RankedQuery ranked = getMovieIndex().rankedQuery(query, genre, releaseYear, ratingFrom);
+        cancelPager();
+        pager = new MoviePager((offset, limit) -> CompletableFuture.supplyAsync(() -> ranked.window(offset, limit),
+                searchExecutor), pageSize);
+        loadingMore = false;
+        requestMovies(pager.next(), this::updateObservableMovies);
+    }
+
+    // a list showing all matches at once has no windows left to load
+    private void cancelPager() {
+        if (pager != null) {
+            pager.cancel();
+            pager = null;
+        }
+    }
+
+    private boolean isRanked(String query) {
+        return rankedSearch && query != null && !query.isBlank();
+    }
+
+    // an unknown mode is no reason not to start, SNAPSHOT is used instead
+    static QueryMode parseQueryMode(String mode) {
+        if (mode == null || mode.isBlank()) {
+            return QueryMode.SNAPSHOT;
+        }
+        try {
+            return QueryMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown query mode " + mode + ", using SNAPSHOT (REMOTE, LOCAL or SNAPSHOT)");
+            return QueryMode.SNAPSHOT;
+        }
+    }
+
+    protected Integer parseReleaseYear(String releaseYear) {
+        return (releaseYear != null && !releaseYear.isEmpty()) ? Integer.valueOf(releaseYear) : null;
+    }
+
+    protected Double parseRating(String rating) {
+        return (rating != null && !rating.isEmpty()) ? Double.valueOf(rating) : null;
+    }
+
+    // number of movies each genre and year would yield together with the other current selections
+    public FacetCounts currentFacetCounts() {
+        String query = getSearchQuery();
+        Genre genre = parseGenre(getSelectedGenre());
+        Integer releaseYear = parseReleaseYear(getSelectedReleaseYear());
+        Double ratingFrom = parseRating(getSelectedRating());
+        if (isRanked(query)) { // the movies the ranked list holds once scrolled to its end
+            return getMovieIndex().countRanked(query, genre, releaseYear, ratingFrom);
+        }
+        return getMovieIndex().count(query, genre, releaseYear, ratingFrom);
+    }
+
+    // shows "item (count)" in the drop down, the counts are computed once each time it opens
+    private void showFacetCounts(JFXComboBox comboBox, ToIntBiFunction<FacetCounts, Object> count) {
+        comboBox.setCellFactory(listView -> new ListCell<Object>() {
+            @Override
+            protected void updateItem(Object item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null || "".equals(item)) {
+                    setText(empty || item == null ? null : "");
+                } else {
+                    setText(facetCounts == null ? item.toString() : item + "  (" + count.applyAsInt(facetCounts, item) + ")");
+                }
+            }
+        });
+        comboBox.setOnShowing(event -> {
+            facetCounts = currentFacetCounts();
+            if (comboBox.getSkin() instanceof ComboBoxListViewSkin<?> skin) {
+                ((ListView<?>) skin.getPopupContent()).refresh();
+            }
+        });
     }
 
     private void updateObservableMovies(List<Movie> movies) {
-        observableMovies.setAll(movies);
+        // only rows whose movie changed are touched in the list view
+        long start = Metrics.start();
+        observableMovies.update(movies, Movie::getId);
+        shownCatalog = movies == allMovies ? allMovies : null;
+        shownCatalogVersion = observableMovies.getVersion();
+        listUpdateTimer.stop(start);
+        sortMovies(sortState); // keeps the chosen order for new results
     }
 
 
     public void sortMovies (SortState sortState) {
-        if (sortState == SortState.ASCENDING) {
-            observableMovies.sort(Comparator.comparing(Movie::getTitle));
-        } else if (sortState == SortState.DESCENDING){
-            observableMovies.sort(Comparator.comparing(Movie::getTitle).reversed());
+        if (sortState != SortState.ASCENDING && sortState != SortState.DESCENDING) {
+            return;
+        }
+        // the list is put into ascending order once, descending is the same order read backwards
+        SortEvent event = new SortEvent();
+        event.begin();
+        long start = Metrics.start();
+        boolean reorder = sortedBy != sortField || sortedVersion != observableMovies.getVersion();
+        if (reorder) {
+            List<Movie> movies = new ArrayList<>(observableMovies);
+            int[] order = sortOrder(movies, sortField);
+            List<Movie> ascending = new ArrayList<>(order.length);
+            for (int position : order) {
+                ascending.add(movies.get(position));
+            }
+            observableMovies.update(ascending, Movie::getId); // a permutation of the same movies
+            sortedBy = sortField;
+            sortedVersion = observableMovies.getVersion();
+        }
+        observableMovies.setReversed(sortState == SortState.DESCENDING);
+        sortTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.field = sortField.name();
+            event.direction = sortState.name();
+            event.size = observableMovies.size();
+            event.reordered = reorder;
+            event.commit();
         }
     }
 
+    // uses the sort keys of the loaded catalog, which also covers the full catalog being shown; the list
+    // still holds it unchanged as long as its version did not move since it was set to allMovies
+    private int[] sortOrder(List<Movie> movies, SortField field) {
+        if (allMovies == null) {
+            return new SortKeys(List.of()).order(movies, field);
+        }
+        boolean catalog = shownCatalog == allMovies && shownCatalogVersion == observableMovies.getVersion();
+        return getMovieIndex().sortOrder(catalog ? allMovies : movies, field);
+    }
+
     // function is called after filterByReleaseYear and has the return value as argument
     public List<Movie> filterByRatingFrom(List<Movie> moviesFilteredBySearchQueryAndGenreAndReleaseYear, String rating) {
-        List<Movie> moviesFilteredByRatingFrom = new ArrayList<>();
         if (rating != null && !rating.isEmpty()) {
-            for (Movie movie : moviesFilteredBySearchQueryAndGenreAndReleaseYear) {
-                if (rating.equals(movie.getRating())) {
-                    moviesFilteredByRatingFrom.add(movie);
-                }
-            } return moviesFilteredByRatingFrom;
+            double ratingFrom = Double.parseDouble(rating);
+            return Parallel.filter(moviesFilteredBySearchQueryAndGenreAndReleaseYear, movie -> movie.getRating() >= ratingFrom);
         } else {
             return moviesFilteredBySearchQueryAndGenreAndReleaseYear;
         }
@@ -228,13 +770,9 @@ public class HomeController implements Initializable {
 
     // function is called after filterByGenre and has the return value as argument
     public List<Movie> filterByReleaseYear(List<Movie> moviesFilteredBySearchQueryAndGenre, String releaseYear) {
-        List<Movie> moviesFilteredByReleaseYear = new ArrayList<>();
         if (releaseYear != null && !releaseYear.isEmpty()) {
-            for (Movie movie : moviesFilteredBySearchQueryAndGenre) {
-                if (releaseYear.equals(movie.getReleaseYear())) {
-                    moviesFilteredByReleaseYear.add(movie);
-                }
-            } return moviesFilteredByReleaseYear;
+            return Parallel.filter(moviesFilteredBySearchQueryAndGenre,
+                    movie -> releaseYear.equals(String.valueOf(movie.getReleaseYear())));
         } else {
             return moviesFilteredBySearchQueryAndGenre;
         }
@@ -242,14 +780,8 @@ public class HomeController implements Initializable {
 
     // function is called after filterBySearchQuery and has the return value as argument
     public List<Movie> filterByGenre(List<Movie> moviesFilteredBySearchQuery, Genre genre) {
-        List<Movie> moviesfilteredByGenre = new ArrayList<>();
         if (genre != null) {
-            for (Movie movie : moviesFilteredBySearchQuery) {
-                if (movie.getGenres().contains(genre)) {
-                    moviesfilteredByGenre.add(movie);
-                }
-            }
-            return moviesfilteredByGenre;
+            return Parallel.filter(moviesFilteredBySearchQuery, movie -> movie.hasGenre(genre));
         } else {
             return moviesFilteredBySearchQuery;
         }
@@ -257,20 +789,21 @@ public class HomeController implements Initializable {
 
 
     public List<Movie> filterBySearchQuery (String query) {
-        Set<Movie> filteredMovies = new HashSet<>(); // no duplicates in Sets
-        if (query != null && !(query.isEmpty())) {
-            for (Movie movie : allMovies) {
-                if (movie.getTitle().toLowerCase().contains(query.toLowerCase())) {
-                    filteredMovies.add(movie);
-                }
-                if (movie.getDescription().toLowerCase().contains(query.toLowerCase())) {
-                    filteredMovies.add(movie);
-                }
-            }
-            return new ArrayList<>(filteredMovies);
-        } else {
-            return allMovies;
+        return getMovieIndex().search(query);
+    }
+
+    // starts building the ranked search of the loaded catalog, text queries are ranked once it is done
+    CompletableFuture<Void> prepareRanking() {
+        return getMovieIndex().prepareRanking();
+    }
+
+    // allMovies is public and may be replaced directly, the index is rebuilt only when that happened
+    private MovieIndex getMovieIndex() {
+        if (movieIndex == null || indexedMovies != allMovies) {
+            movieIndex = new MovieIndex(allMovies);
+            indexedMovies = allMovies;
         }
+        return movieIndex;
     }
 
 }
\ No newline at end of file
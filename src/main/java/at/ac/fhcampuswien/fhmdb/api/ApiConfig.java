@@ -0,0 +1,170 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.brotli.BrotliInterceptor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// Settings of the http client behind MovieApi. Every value has a default, which a properties file
+// (-Dfhmdb.config, default ~/.fhmdb/fhmdb.properties) can override, which a system property of the same
+// name overrides again, e.g. -Dfhmdb.api.readTimeoutMillis=5000.
+public class ApiConfig {
+    static final String PREFIX = "fhmdb.api.";
+
+    private final String baseUrl;
+    private final int maxIdleConnections;
+    private final Duration keepAlive;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration callTimeout; // a whole call with the response body, retries are not counted
+    private final boolean http2;
+    private final String compression; // br, gzip or none
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final long retryMaxMillis;
+    private final long failureBudgetMillis; // no retry starts later than this after the first attempt
+    private final int breakerThreshold;
+    private final long breakerOpenMillis;
+
+    public ApiConfig(Properties properties) {
+        baseUrl = properties.getProperty(PREFIX + "baseUrl", "https://prog2.fh-campuswien.ac.at/movies");
+        maxIdleConnections = Integer.parseInt(properties.getProperty(PREFIX + "maxIdleConnections", "5"));
+        keepAlive = Duration.ofSeconds(Long.parseLong(properties.getProperty(PREFIX + "keepAliveSeconds", "300")));
+        connectTimeout = Duration.ofMillis(Long.parseLong(properties.getProperty(PREFIX + "connectTimeoutMillis", "5000")));
+        readTimeout = Duration.ofMillis(Long.parseLong(properties.getProperty(PREFIX + "readTimeoutMillis", "15000")));
+        http2 = Boolean.parseBoolean(properties.getProperty(PREFIX + "http2", "true"));
+        compression = properties.getProperty(PREFIX + "compression", "br").toLowerCase(Locale.ROOT);
+        maxAttempts = Integer.parseInt(properties.getProperty(PREFIX + "maxAttempts", "3"));
+        retryBaseMillis = Long.parseLong(properties.getProperty(PREFIX + "retryBaseMillis", "200"));
+        retryMaxMillis = Long.parseLong(properties.getProperty(PREFIX + "retryMaxMillis", "2000"));
+        failureBudgetMillis = Long.parseLong(properties.getProperty(PREFIX + "failureBudgetMillis", "8000"));
+        callTimeout = Duration.ofMillis(Long.parseLong(properties.getProperty(PREFIX + "callTimeoutMillis",
+                String.valueOf(failureBudgetMillis))));
+        breakerThreshold = Integer.parseInt(properties.getProperty(PREFIX + "breakerThreshold", "5"));
+        breakerOpenMillis = Long.parseLong(properties.getProperty(PREFIX + "breakerOpenMillis", "30000"));
+        if (!List.of("br", "gzip", "none").contains(compression)) {
+            throw new IllegalArgumentException("Unknown compression " + compression + ", use br, gzip or none");
+        }
+    }
+
+    // defaults, then the config file, then system properties
+    public static ApiConfig load() {
+        Properties properties = new Properties();
+        Path file = Path.of(System.getProperty("fhmdb.config",
+                Path.of(System.getProperty("user.home"), ".fhmdb", "fhmdb.properties").toString()));
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                System.err.println("Could not read config file " + file + ": " + e.getMessage());
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PREFIX)) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+        return new ApiConfig(properties);
+    }
+
+    public OkHttpClient newClient() {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .callTimeout(callTimeout) // a server trickling bytes never hits the read timeout
+                // HTTP/2 is negotiated during the TLS handshake, plain http always uses HTTP/1.1
+                .protocols(http2 ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1));
+        if (compression.equals("br")) {
+            builder.addInterceptor(BrotliInterceptor.INSTANCE); // asks for br and gzip and decodes either
+        } else if (compression.equals("none")) {
+            builder.addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                    .header("Accept-Encoding", "identity").build()));
+        } // gzip is what OkHttp asks for and decodes by itself
+        return builder.build();
+    }
+
+    RetryPolicy newRetryPolicy() {
+        return new RetryPolicy(maxAttempts, retryBaseMillis, retryMaxMillis, failureBudgetMillis);
+    }
+
+    CircuitBreaker newCircuitBreaker() {
+        return new CircuitBreaker(breakerThreshold, breakerOpenMillis);
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public Duration getCallTimeout() {
+        return callTimeout;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getFailureBudgetMillis() {
+        return failureBudgetMillis;
+    }
+
+    public int getBreakerThreshold() {
+        return breakerThreshold;
+    }
+
+    public long getBreakerOpenMillis() {
+        return breakerOpenMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ApiConfig{" +
+                "baseUrl='" + baseUrl + '\'' +
+                ", maxIdleConnections=" + maxIdleConnections +
+                ", keepAlive=" + keepAlive +
+                ", connectTimeout=" + connectTimeout +
+                ", readTimeout=" + readTimeout +
+                ", callTimeout=" + callTimeout +
+                ", http2=" + http2 +
+                ", compression='" + compression + '\'' +
+                ", maxAttempts=" + maxAttempts +
+                ", failureBudgetMillis=" + failureBudgetMillis +
+                ", breakerThreshold=" + breakerThreshold +
+                ", breakerOpenMillis=" + breakerOpenMillis +
+                '}';
+    }
+}
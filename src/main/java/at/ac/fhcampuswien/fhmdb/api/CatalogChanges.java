@@ -0,0 +1,32 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.List;
+
+// Answer of the change feed (GET <baseUrl>/changes?since=<version>): the movies that were added or changed
+// since that version, the ids of those that were removed, and the version the catalog has now.
+// The JSON shape is {"version": "...", "changed": [movies], "removed": ["id", ...]}.
+public class CatalogChanges {
+    private final String version;
+    private final List<Movie> changed;
+    private final List<String> removed;
+
+    public CatalogChanges(String version, List<Movie> changed, List<String> removed) {
+        this.version = version;
+        this.changed = changed;
+        this.removed = removed;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public List<Movie> getChanged() {
+        return changed;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+}
@@ -0,0 +1,73 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import java.util.function.LongSupplier;
+
+// Stops sending requests to a server that keeps failing. After failureThreshold failures in a row the breaker
+// opens and every request is refused for openMillis, so the caller can fall back at once instead of waiting
+// for timeouts. Then a single trial request is let through: success closes the breaker, failure opens it again.
+class CircuitBreaker {
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int failures; // in a row
+    private long openedAt;
+    private long trialStartedAt;
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    // false while the breaker is open or a trial request is still running
+    synchronized boolean allowRequest() {
+        long now = clock.getAsLong();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openMillis) {
+                    return false;
+                }
+                break;
+            case HALF_OPEN:
+                // a trial that never reported back (e.g. cancelled) must not keep the breaker half open forever
+                if (now - trialStartedAt < openMillis) {
+                    return false;
+                }
+                break;
+        }
+        state = State.HALF_OPEN;
+        trialStartedAt = now;
+        return true;
+    }
+
+    // the server answered, even an error status like 404 counts as being reachable
+    synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    synchronized void recordFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            return State.HALF_OPEN; // the next request is the trial
+        }
+        return state;
+    }
+}
@@ -1,21 +1,85 @@
 package at.ac.fhcampuswien.fhmdb.api;
 
+import at.ac.fhcampuswien.fhmdb.events.ApiRequestEvent;
+import at.ac.fhcampuswien.fhmdb.events.CatalogParseEvent;
+import at.ac.fhcampuswien.fhmdb.metrics.Counter;
+import at.ac.fhcampuswien.fhmdb.metrics.Histogram;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.metrics.Timer;
 import at.ac.fhcampuswien.fhmdb.models.Genre;
 import at.ac.fhcampuswien.fhmdb.models.Movie;
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import okhttp3.Call;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
-import java.lang.reflect.Type;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 
 public class MovieApi {
-    private static final OkHttpClient client = new OkHttpClient();
-    private final static String baseUrl = "https://prog2.fh-campuswien.ac.at/movies";
+    // base url, connection pool, timeouts, protocols and compression, see ApiConfig
+    private static final ApiConfig config = ApiConfig.load();
+    private static final OkHttpClient client = config.newClient();
+    private final static String baseUrl = config.getBaseUrl();
+
+    // Gson and the Movie adapter are thread-safe, so they are created once instead of per request
+    private static final Gson gson = new Gson();
+    private static final TypeAdapter<Movie> movieAdapter = gson.getAdapter(Movie.class);
+    static final int BATCH_SIZE = 256; // movies handed to a batch consumer at once
+
+    // responses are cached under -Dfhmdb.cacheDir (default ~/.fhmdb/cache) and revalidated with their ETag
+    private static final ResponseCache cache = new ResponseCache(
+            Path.of(System.getProperty("fhmdb.cacheDir", Path.of(System.getProperty("user.home"), ".fhmdb", "cache").toString())),
+            32L * 1024 * 1024, 256L * 1024 * 1024);
+
+    // overlapping requests for the same url share one call, results are reused for -Dfhmdb.memoTtl ms (default 2000)
+    // unless they hold more than -Dfhmdb.memoMaxMovies movies (default 10000)
+    // failed requests are retried with jittered backoff, a server that keeps failing is left alone for a while
+    private static final RetryPolicy retryPolicy = config.newRetryPolicy();
+    private static final CircuitBreaker breaker = config.newCircuitBreaker();
+
+    private static final Timer httpTimer = Metrics.timer("api.http"); // until the response headers arrived
+    private static final Timer decodeTimer = Metrics.timer("api.decode"); // reading the body, includes the download
+    private static final Histogram payloadBytes = Metrics.histogram("api.payloadBytes");
+    private static final Counter attemptCounter = Metrics.counter("api.attempts");
+    private static final Counter retryCounter = Metrics.counter("api.retries");
+    private static final Counter failureCounter = Metrics.counter("api.failures");
+    private static final Counter staleCounter = Metrics.counter("api.stale");
+
+    private static final SingleFlight singleFlight = new SingleFlight(Long.getLong("fhmdb.memoTtl", 2_000), 16,
+            Integer.getInteger("fhmdb.memoMaxMovies", 10_000));
+
+    // false once the server answered that it has no change feed, then it is not asked for one again
+    private static volatile boolean changeFeedAvailable = true;
+
+    // background threads for async requests, daemon so a pending request never keeps the app alive
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "movie-api");
+        thread.setDaemon(true);
+        return thread;
+    });
 
 
     public static String constructUrl (String query, Genre genre, String releaseYear, String ratingFrom) {
@@ -50,31 +114,546 @@ public class MovieApi {
     }
 
     public static List<Movie> getAllMovies(String query, Genre genre, String releaseYear, String ratingFrom) {
-        String url = constructUrl(query, genre, releaseYear, ratingFrom);
+        return getAllMoviesAsync(query, genre, releaseYear, ratingFrom).join();
+    }
+
+    public static CompletableFuture<List<Movie>> getAllMoviesAsync() {
+        return getAllMoviesAsync(null, null, null, null);
+    }
+
+    public static CompletableFuture<List<Movie>> getAllMoviesAsync(String query, Genre genre, String releaseYear, String ratingFrom) {
+        return getAllMoviesAsync(query, genre, releaseYear, ratingFrom, null);
+    }
+
+    public static ResponseCache getCache() {
+        return cache;
+    }
+
+    // runs the request in the background; cancelling the returned future also cancels the http call,
+    // unless other callers are waiting for the same result. Without onBatch, equivalent requests that overlap
+    // share one call and a result is reused for a short time.
+    // onBatch (optional) receives the movies in batches on the background thread while the response is still downloading
+    public static CompletableFuture<List<Movie>> getAllMoviesAsync(String query, Genre genre, String releaseYear, String ratingFrom,
+                                                                   Consumer<List<Movie>> onBatch) {
+        String url = normalizedUrl(query, genre, releaseYear, ratingFrom);
+        if (onBatch != null) { // the batches of a shared call may already be gone, so a streaming caller gets its own
+            Attempts attempts = new Attempts(newCall(url));
+            return submit(attempts, () -> execute(attempts, onBatch));
+        }
+        return singleFlight.get(url, () -> {
+            Attempts attempts = new Attempts(newCall(url));
+            return submit(attempts, () -> execute(attempts, null));
+        });
+    }
+
+    // the url for equivalent parameters is always the same: blanks around values and empty values are dropped,
+    // numbers are written without trailing zeros ("7.0" -> "7")
+    static String normalizedUrl(String query, Genre genre, String releaseYear, String ratingFrom) {
+        return constructUrl(blankToNull(query), genre, canonicalNumber(releaseYear), canonicalNumber(ratingFrom));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String canonicalNumber(String value) {
+        String trimmed = blankToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(trimmed).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return trimmed; // passed on as it is, the server decides
+        }
+    }
+
+    // one window of the result: the movies from offset to offset + limit - 1, fewer or none at the end.
+    // The server cannot page, so the response is streamed, everything before the window is skipped without
+    // decoding it and the connection is closed as soon as the window is complete
+    public static CompletableFuture<List<Movie>> getMoviesWindowAsync(String query, Genre genre, String releaseYear, String ratingFrom,
+                                                                      int offset, int limit) {
+        String url = normalizedUrl(query, genre, releaseYear, ratingFrom);
+        return singleFlight.get(url + "#" + offset + "+" + limit, () -> {
+            Attempts attempts = new Attempts(newCall(url));
+            return submit(attempts, () -> executeWindow(attempts, offset, limit));
+        });
+    }
+
+    public static ApiConfig getConfig() {
+        return config;
+    }
+
+    // the ETag of the whole catalog as last received (also by a 304 or as stale answer, which is the same
+    // catalog), null if it was never downloaded. The change feed takes it as the version to start from
+    public static String getCatalogVersion() {
+        ResponseCache.Entry entry = cache.get(normalizedUrl(null, null, null, null));
+        return entry != null ? entry.getEtag() : null;
+    }
+
+    // Asks the change feed for what happened to the catalog since the given version (getCatalogVersion or
+    // CatalogChanges.getVersion). Completes with null whenever that cannot be answered: no version to start
+    // from, a server without a feed (404, 405, 501; not asked again), a version the feed no longer knows (410)
+    // or any failure. The caller then downloads the whole catalog, which has the retries and the cache fallback.
+    public static CompletableFuture<CatalogChanges> getChangesAsync(String since) {
+        if (since == null || !changeFeedAvailable) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpUrl url = HttpUrl.get(baseUrl).newBuilder()
+                .addPathSegment("changes")
+                .addQueryParameter("since", since)
+                .build();
+        Call call = client.newCall(new Request.Builder()
+                .url(url)
+                .header("User-Agent", "Java HttpClient")
+                .build());
+        CompletableFuture<CatalogChanges> future = CompletableFuture.supplyAsync(() -> executeChanges(call), executor);
+        future.whenComplete((changes, throwable) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    private static CatalogChanges executeChanges(Call call) {
+        if (!breaker.allowRequest()) {
+            return null;
+        }
+        attemptCounter.increment();
+        ApiRequestEvent event = new ApiRequestEvent();
+        event.begin();
+        event.attempt = 1;
+        event.bytes = -1;
+        event.outcome = "failed";
+        long started = Metrics.start();
+        try (Response response = call.execute()) {
+            httpTimer.stop(started);
+            event.status = response.code();
+            if (response.code() == 404 || response.code() == 405 || response.code() == 501) {
+                event.outcome = "clientError";
+                breaker.recordSuccess();
+                changeFeedAvailable = false;
+                System.err.println("The server has no change feed, the catalog is downloaded as a whole");
+                return null;
+            }
+            if (!response.isSuccessful()) { // not retried, the full download that follows is
+                if (RetryPolicy.isRetryable(response.code())) {
+                    breaker.recordFailure();
+                    failureCounter.increment();
+                } else {
+                    event.outcome = "clientError";
+                    breaker.recordSuccess();
+                }
+                return null;
+            }
+            started = Metrics.start();
+            CatalogChanges changes = readChanges(new InputStreamReader(response.body().byteStream(), StandardCharsets.UTF_8));
+            decodeTimer.stop(started);
+            event.outcome = "ok";
+            breaker.recordSuccess();
+            return changes;
+        } catch (IOException e) {
+            if (!call.isCanceled()) {
+                breaker.recordFailure();
+                failureCounter.increment();
+                System.err.println("Catalog changes could not be loaded: " + e.getMessage());
+            }
+            return null;
+        } catch (Exception e) {
+            System.err.println("Catalog changes could not be read: " + e.getMessage());
+            return null;
+        } finally {
+            commit(event, call);
+        }
+    }
+
+
+    // Opens a connection to the server in the background (DNS, TCP, TLS and the HTTP/2 negotiation), which
+    // then waits in the pool for the first real request. Failures are ignored, the request will report them.
+    public static CompletableFuture<Void> warmUp() {
+        Call call = client.newCall(new Request.Builder()
+                .url(baseUrl)
+                .head()
+                .header("User-Agent", "Java HttpClient")
+                .build());
+        return CompletableFuture.runAsync(() -> {
+            try (Response ignored = call.execute()) {
+                // only the connection is needed
+            } catch (IOException e) {
+                System.err.println("Could not warm up the connection to " + baseUrl + ": " + e.getMessage());
+            }
+        }, executor);
+    }
+
+    private static CompletableFuture<List<Movie>> submit(Attempts attempts, Supplier<List<Movie>> execution) {
+        CompletableFuture<List<Movie>> future = CompletableFuture.supplyAsync(execution, executor);
+        future.whenComplete((movies, throwable) -> {
+            if (future.isCancelled()) {
+                attempts.cancel();
+            }
+        });
+        return future;
+    }
+
+    private static Call newCall(String url) {
 
         // Erstelle eine GET-Anfrage
-        Request request = new Request.Builder()
+        Request.Builder request = new Request.Builder()
                 .url(url)
                 .header("User-Agent", "Java HttpClient") // User-Agent setzen
-                .build();
+                .tag(String.class, url); // cache key
+
+        // conditional request, the server answers 304 if the cached response is still current
+        ResponseCache.Entry cached = cache.get(url);
+        if (cached != null) {
+            request.tag(ResponseCache.Entry.class, cached);
+            if (cached.getEtag() != null) {
+                request.header("If-None-Match", cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                request.header("If-Modified-Since", cached.getLastModified());
+            }
+        }
+
+        return client.newCall(request.build());
+    }
+
+    private static List<Movie> execute(Attempts attempts, Consumer<List<Movie>> onBatch) {
+        // batches that already reached the caller are not delivered again by a retry or the fallback
+        AtomicBoolean delivered = new AtomicBoolean();
+        Consumer<List<Movie>> batches = onBatch == null ? null : batch -> {
+            delivered.set(true);
+            onBatch.accept(batch);
+        };
+        return fetch(attempts, (call, response, event) -> {
+            // JSON direkt aus dem Stream lesen, ohne die ganze Antwort als String zu puffern;
+            // the raw bytes are written to a cache file along the way, it replaces the cached response once
+            // the whole response was parsed
+            try (ResponseCache.Store copy = cache.store(call.request().tag(String.class), response.header("ETag"),
+                    response.header("Last-Modified"))) {
+                InputStream body = new TeeInputStream(response.body().byteStream(), copy);
+                List<Movie> movies = readMovies(new InputStreamReader(body, StandardCharsets.UTF_8), delivered.get() ? null : batches);
+                payloadBytes.record(copy.size());
+                event.bytes = copy.size();
+                copy.commit();
+                return movies;
+            }
+        }, reader -> readMovies(reader, delivered.get() ? null : batches));
+    }
+
+    private static List<Movie> executeWindow(Attempts attempts, int offset, int limit) {
+        // only a part of the response is read, so it is not stored in the cache
+        return fetch(attempts, (call, response, event) -> readWindow(new InputStreamReader(response.body().byteStream(),
+                StandardCharsets.UTF_8), offset, limit), reader -> readWindow(reader, offset, limit));
+    }
 
-        // Sende die Anfrage und erhalte die Antwort
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                System.err.println("Request failed with status code: " + response.code());
+    // Sends the request, repeating it after network errors, 408, 429 and 5xx as long as the retry policy and its
+    // failure budget allow. Every outcome is reported to the circuit breaker, and while it is open the server is
+    // not asked at all. If the server does not deliver, the last good response for the url is read from the
+    // cache (memory or disk) and returned as StaleMovies; without one the result is empty as before.
+    private static List<Movie> fetch(Attempts attempts, ResponseReader readResponse, CachedReader readCached) {
+        long firstAttempt = System.currentTimeMillis();
+        String url = attempts.current().request().tag(String.class);
+        for (int attempt = 1; ; attempt++) {
+            // a retry only gets what is left of the failure budget
+            long left = Math.max(1, retryPolicy.getBudgetMillis() - (System.currentTimeMillis() - firstAttempt));
+            Call call = attempt == 1 ? attempts.current() : attempts.retry(left);
+            if (call == null) {
+                return new ArrayList<>(); // cancelled
+            }
+            if (!breaker.allowRequest()) {
+                System.err.println("Server unavailable, not asking it again for now");
+                break;
+            }
+
+            // Sende die Anfrage und erhalte die Antwort
+            String failure;
+            attemptCounter.increment();
+            if (attempt > 1) {
+                retryCounter.increment();
+            }
+            ApiRequestEvent event = new ApiRequestEvent();
+            event.begin();
+            event.attempt = attempt;
+            event.bytes = -1;
+            event.outcome = "failed";
+            long started = Metrics.start();
+            try (Response response = call.execute()) {
+                httpTimer.stop(started);
+                event.status = response.code();
+                ResponseCache.Entry cached = call.request().tag(ResponseCache.Entry.class);
+                if (response.code() == 304 && cached != null) {
+                    event.outcome = "notModified";
+                    breaker.recordSuccess();
+                    cache.recordRevalidation();
+                    started = Metrics.start();
+                    List<Movie> movies = readNotModified(cached, readCached);
+                    decodeTimer.stop(started);
+                    if (movies != null) {
+                        return movies;
+                    }
+                    attempts.unconditional(); // the next attempt asks for the whole response
+                    continue;
+                }
+                if (response.isSuccessful()) {
+                    started = Metrics.start();
+                    List<Movie> movies = readResponse.read(call, response, event);
+                    decodeTimer.stop(started);
+                    event.outcome = "ok";
+                    breaker.recordSuccess();
+                    return movies;
+                }
+                failure = "Request failed with status code: " + response.code();
+                if (!RetryPolicy.isRetryable(response.code())) {
+                    event.outcome = "clientError";
+                    breaker.recordSuccess(); // the server is there, it just does not like the request
+                    System.err.println(failure);
+                    return new ArrayList<>(); // Leere Liste zurückgeben bei Fehler
+                }
+            } catch (IOException e) {
+                if (attempts.isCancelled()) { // a cancelled call was superseded by a newer request, nothing to report
+                    event.outcome = "cancelled";
+                    return new ArrayList<>();
+                }
+                failure = "An error occurred: " + e.getMessage();
+            } catch (Exception e) {
+                System.err.println("An error occurred: " + e.getMessage());
                 return new ArrayList<>(); // Leere Liste zurückgeben bei Fehler
+            } finally {
+                commit(event, call);
             }
 
-            // JSON-Antwort als String abrufen
-            String jsonResponse = response.body().string();
+            breaker.recordFailure();
+            failureCounter.increment();
+            long pause = retryPolicy.pauseMillis(attempt, System.currentTimeMillis() - firstAttempt);
+            System.err.println(failure + (pause >= 0 ? ", retrying in " + pause + " ms" : ""));
+            if (pause < 0) {
+                break;
+            }
+            if (!attempts.pause(pause)) {
+                return new ArrayList<>();
+            }
+        }
+        return readStale(url, readCached);
+    }
 
-            // JSON in eine Liste von Movie-Objekten umwandeln
-            Type movieListType = new TypeToken<List<Movie>>() {}.getType();
-            Gson gson = new Gson();
-            return gson.fromJson(jsonResponse, movieListType);
+    // the url parameters are only taken apart if the event is recorded
+    private static void commit(ApiRequestEvent event, Call call) {
+        if (event.shouldCommit()) {
+            HttpUrl url = call.request().url();
+            event.url = url.toString();
+            event.query = url.queryParameter("query");
+            event.genre = url.queryParameter("genre");
+            event.releaseYear = url.queryParameter("releaseYear");
+            event.rating = url.queryParameter("rating");
+            event.commit();
+        }
+    }
+
+    private static List<Movie> readStale(String url, CachedReader readCached) {
+        ResponseCache.Entry entry = url != null ? cache.get(url) : null;
+        if (entry == null) {
+            return new ArrayList<>();
+        }
+        try (Reader reader = new InputStreamReader(entry.openBody(), StandardCharsets.UTF_8)) {
+            List<Movie> movies = readCached.read(reader);
+            staleCounter.increment();
+            return new StaleMovies(movies, Instant.ofEpochMilli(entry.getStoredAt()));
+        } catch (Exception e) {
+            System.err.println("Cached response could not be read: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // the body is only read from the cache file now; null if it cannot be read, the entry is dropped then
+    private static List<Movie> readNotModified(ResponseCache.Entry cached, CachedReader readCached) {
+        try (Reader reader = new InputStreamReader(cached.openBody(), StandardCharsets.UTF_8)) {
+            return readCached.read(reader);
         } catch (Exception e) {
-            System.err.println("An error occurred: " + e.getMessage());
-            return new ArrayList<>(); // Leere Liste zurückgeben bei Fehler
+            System.err.println("Cached response could not be read, asking for all of it: " + e.getMessage());
+            cache.remove(cached.getUrl());
+            return null;
+        }
+    }
+
+    private interface ResponseReader {
+        List<Movie> read(Call call, Response response, ApiRequestEvent event) throws IOException;
+    }
+
+    private interface CachedReader {
+        List<Movie> read(Reader reader) throws IOException;
+    }
+
+    // the call of the current attempt; a retry needs a fresh copy because a call can only be executed once
+    private static final class Attempts {
+        private Call call;
+        private boolean cancelled;
+
+        Attempts(Call call) {
+            this.call = call;
+        }
+
+        synchronized Call current() {
+            return call;
+        }
+
+        // a new call that gives up after at most timeoutMillis, null once cancelled
+        synchronized Call retry(long timeoutMillis) {
+            if (cancelled) {
+                return null;
+            }
+            long callTimeout = client.callTimeoutMillis();
+            call = client.newBuilder()
+                    .callTimeout(callTimeout > 0 ? Math.min(callTimeout, timeoutMillis) : timeoutMillis, TimeUnit.MILLISECONDS)
+                    .build()
+                    .newCall(call.request());
+            return call;
+        }
+
+        // the same request without the conditional headers, for when the cached response is gone
+        synchronized void unconditional() {
+            call = client.newCall(call.request().newBuilder()
+                    .removeHeader("If-None-Match")
+                    .removeHeader("If-Modified-Since")
+                    .tag(ResponseCache.Entry.class, null)
+                    .build());
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            call.cancel();
+            notifyAll();
+        }
+
+        // false if cancelled before the pause was over
+        synchronized boolean pause(long millis) {
+            long end = System.currentTimeMillis() + millis;
+            try {
+                for (long left = millis; !cancelled && left > 0; left = end - System.currentTimeMillis()) {
+                    wait(left);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return !cancelled;
+        }
+    }
+
+    // decodes the movies offset to offset + limit - 1 of a JSON array and stops reading after them
+    static List<Movie> readWindow(Reader reader, int offset, int limit) throws IOException {
+        CatalogParseEvent event = new CatalogParseEvent();
+        event.begin();
+        List<Movie> movies = new ArrayList<>(Math.min(limit, BATCH_SIZE));
+        try (JsonReader jsonReader = gson.newJsonReader(reader)) {
+            jsonReader.beginArray();
+            for (int skipped = 0; skipped < offset && jsonReader.hasNext(); skipped++) {
+                jsonReader.skipValue();
+            }
+            while (movies.size() < limit && jsonReader.hasNext()) {
+                movies.add(movieAdapter.read(jsonReader));
+            }
+        }
+        event.movies = movies.size();
+        event.window = true;
+        event.commit();
+        return movies;
+    }
+
+    // decodes the answer of the change feed, unknown fields are skipped
+    static CatalogChanges readChanges(Reader reader) throws IOException {
+        String version = null;
+        List<Movie> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        try (JsonReader jsonReader = gson.newJsonReader(reader)) {
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                switch (jsonReader.nextName()) {
+                    case "version" -> version = jsonReader.nextString();
+                    case "changed" -> {
+                        jsonReader.beginArray();
+                        while (jsonReader.hasNext()) {
+                            changed.add(movieAdapter.read(jsonReader));
+                        }
+                        jsonReader.endArray();
+                    }
+                    case "removed" -> {
+                        jsonReader.beginArray();
+                        while (jsonReader.hasNext()) {
+                            removed.add(jsonReader.nextString());
+                        }
+                        jsonReader.endArray();
+                    }
+                    default -> jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+        }
+        return new CatalogChanges(version, changed, removed);
+    }
+
+    // decodes a JSON array of movies one element at a time
+    static List<Movie> readMovies(Reader reader, Consumer<List<Movie>> onBatch) throws IOException {
+        CatalogParseEvent event = new CatalogParseEvent();
+        event.begin();
+        List<Movie> movies = new ArrayList<>();
+        List<Movie> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (JsonReader jsonReader = gson.newJsonReader(reader)) {
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                Movie movie = movieAdapter.read(jsonReader);
+                movies.add(movie);
+
+                if (onBatch != null) {
+                    batch.add(movie);
+                    if (batch.size() == BATCH_SIZE) {
+                        onBatch.accept(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+            }
+            jsonReader.endArray();
+        }
+
+        if (onBatch != null && !batch.isEmpty()) {
+            onBatch.accept(batch);
+        }
+        event.movies = movies.size();
+        event.commit();
+        return movies;
+    }
+
+    // copies everything that is read from the wrapped stream
+    private static class TeeInputStream extends FilterInputStream {
+        private final OutputStream copy;
+
+        TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                copy.write(value);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                copy.write(buffer, offset, read);
+            }
+            return read;
         }
     }
 
@@ -0,0 +1,90 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Hands out the result of one /movies query window by window, so only what the user scrolls to is loaded.
+// Whenever a window is handed out, the one after it is already requested in the background; at most one
+// window is held ahead, so memory depends on the window size and not on the size of the result.
+public class MoviePager {
+
+    // loads the movies offset to offset + limit - 1
+    public interface WindowLoader {
+        CompletableFuture<List<Movie>> load(int offset, int limit);
+    }
+
+    private final WindowLoader loader;
+    private final int windowSize;
+    private int nextOffset;
+    private CompletableFuture<List<Movie>> prefetched; // the window starting at nextOffset, if already requested
+    private boolean exhausted; // no window after the last loaded one
+
+    public MoviePager(String query, Genre genre, String releaseYear, String ratingFrom, int windowSize) {
+        this((offset, limit) -> MovieApi.getMoviesWindowAsync(query, genre, releaseYear, ratingFrom, offset, limit), windowSize);
+    }
+
+    // windows from elsewhere, e.g. a query on the local MovieStore
+    public MoviePager(WindowLoader loader, int windowSize) {
+        this.loader = loader;
+        this.windowSize = windowSize;
+    }
+
+    // the next window, an empty list once everything was handed out
+    public synchronized CompletableFuture<List<Movie>> next() {
+        if (!hasMore()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        CompletableFuture<List<Movie>> window = prefetched != null ? prefetched : load(nextOffset);
+        nextOffset += windowSize;
+        prefetched = null;
+        int following = nextOffset;
+        window.thenAccept(movies -> {
+            if (movies.size() == windowSize) {
+                prefetch(following);
+            }
+        });
+        return window;
+    }
+
+    // false once the last window was handed out
+    public synchronized boolean hasMore() {
+        return !exhausted || prefetched != null;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public synchronized void cancel() {
+        exhausted = true;
+        if (prefetched != null) {
+            prefetched.cancel(true);
+            prefetched = null;
+        }
+    }
+
+    private CompletableFuture<List<Movie>> load(int offset) {
+        CompletableFuture<List<Movie>> window = loader.load(offset, windowSize);
+        window.thenAccept(movies -> {
+            if (movies.size() < windowSize) {
+                markExhausted(); // a short window is the last one
+            }
+        });
+        return window;
+    }
+
+    private synchronized void markExhausted() {
+        exhausted = true;
+    }
+
+    // unless the window was asked for in the meantime
+    private synchronized void prefetch(int offset) {
+        if (!exhausted && prefetched == null && offset == nextOffset) {
+            prefetched = load(offset);
+        }
+    }
+}
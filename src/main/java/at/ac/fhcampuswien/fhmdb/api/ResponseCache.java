@@ -0,0 +1,492 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Two tier cache for /movies responses, keyed by the url from MovieApi.constructUrl.
+// The memory tier is an LRU bounded by bytes, the disk tier keeps one file per url and is bounded
+// by total bytes as well, evicting the least recently used files. Entries remember ETag and
+// Last-Modified so a request can be revalidated with If-None-Match / If-Modified-Since.
+// A lookup only reads the small header of a disk file, the body is read when openBody is called.
+public class ResponseCache {
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path directory; // null = memory only
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private final Map<String, Entry> onDisk = new HashMap<>(); // headers of the disk files read or written so far
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+
+    public ResponseCache(Path directory, long maxMemoryBytes, long maxDiskBytes) {
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    public static class Entry {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final long storedAt;
+        private final byte[] body; // null if the body is only on disk
+        private final Path file;
+        private final int size;
+
+        Entry(String url, String etag, String lastModified, long storedAt, byte[] body) {
+            this(url, etag, lastModified, storedAt, body, null, body.length);
+        }
+
+        private Entry(String url, String etag, String lastModified, long storedAt, byte[] body, Path file, int size) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.storedAt = storedAt;
+            this.body = body;
+            this.file = file;
+            this.size = size;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public long getStoredAt() {
+            return storedAt;
+        }
+
+        // reads the disk file for an entry from disk, so this is for the thread that parses the body
+        public InputStream openBody() throws IOException {
+            if (body != null) {
+                return new ByteArrayInputStream(body);
+            }
+            DataInputStream in = new DataInputStream(Files.newInputStream(file));
+            try {
+                Entry header = readHeader(in, url, file);
+                if (header == null || header.getStoredAt() != storedAt || header.size != size) {
+                    throw new IOException("Cache file " + file + " was replaced");
+                }
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis())); // for LRU eviction
+            return in;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    // looks in memory first, then on disk; null if the url was never stored
+    public Entry get(String url) {
+        synchronized (this) {
+            Entry entry = memory.get(url);
+            if (entry != null) {
+                memoryHits.incrementAndGet();
+                return entry;
+            }
+            entry = onDisk.get(url);
+            if (entry != null) {
+                diskHits.incrementAndGet();
+                return entry;
+            }
+        }
+
+        Entry entry = readFromDisk(url);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        diskHits.incrementAndGet();
+        synchronized (this) {
+            onDisk.put(url, entry);
+        }
+        return entry;
+    }
+
+    public void put(String url, String etag, String lastModified, byte[] body) {
+        Entry entry = new Entry(url, etag, lastModified, System.currentTimeMillis(), body);
+        stores.incrementAndGet();
+        remember(entry);
+        writeToDisk(entry);
+    }
+
+    // Takes the body of a response while it is being read: it is written to a temp file in the cache directory,
+    // which replaces the cached response for the url on commit. A body that fits the memory tier is kept there
+    // as well. Closing without commit throws it away.
+    public Store store(String url, String etag, String lastModified) {
+        return new Store(url, etag, lastModified);
+    }
+
+    public final class Store extends OutputStream {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final long storedAt = System.currentTimeMillis();
+        private ByteArrayOutputStream kept = new ByteArrayOutputStream(); // the body while it fits the memory tier
+        private Path temp;
+        private DataOutputStream out; // null once writing failed or the body got too large
+        private int headerSize;
+        private long size;
+        private boolean done;
+
+        private Store(String url, String etag, String lastModified) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            if (directory == null) {
+                return;
+            }
+            try {
+                Files.createDirectories(directory);
+                temp = Files.createTempFile(directory, "entry", ".tmp");
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+                writeHeader(out, url, etag, lastModified, storedAt, 0); // the size is filled in by commit
+                headerSize = out.size();
+            } catch (IOException e) {
+                discard(e);
+            }
+        }
+
+        // bytes taken so far
+        public long size() {
+            return size;
+        }
+
+        // writing never fails: the response is read on anyway, it is just not stored
+        @Override
+        public void write(int value) {
+            write(new byte[]{(byte) value}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            size += length;
+            if (kept != null && size > maxMemoryBytes) {
+                kept = null;
+            } else if (kept != null) {
+                kept.write(buffer, offset, length);
+            }
+            if (out == null) {
+                return;
+            }
+            if (size > maxDiskBytes) {
+                discard(null);
+                return;
+            }
+            try {
+                out.write(buffer, offset, length);
+            } catch (IOException e) {
+                discard(e);
+            }
+        }
+
+        // the whole response was read and parsed, it becomes the cached one
+        public void commit() {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (directory == null) {
+                if (kept != null) {
+                    put(url, etag, lastModified, kept.toByteArray());
+                } else {
+                    forget(url); // too large to keep, an older body must not be served any more
+                }
+                return;
+            }
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+                out = null;
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) size), headerSize - Integer.BYTES);
+                }
+                Path file = fileFor(url);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                stores.incrementAndGet();
+                stored(new Entry(url, etag, lastModified, storedAt, kept != null ? kept.toByteArray() : null, file,
+                        (int) size));
+                trimDisk();
+            } catch (IOException e) {
+                discard(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!done) {
+                done = true;
+                discard(null);
+            }
+        }
+
+        private void discard(IOException e) {
+            if (e != null) {
+                System.err.println("Could not write cache file: " + e.getMessage());
+            }
+            try {
+                if (out != null) {
+                    out.close();
+                }
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+                // a left over temp file is not in the way of anything
+            }
+            out = null;
+        }
+    }
+
+    // drops the cached response for the url from both tiers, e.g. because its file cannot be read
+    public void remove(String url) {
+        Entry entry;
+        synchronized (this) {
+            forget(url);
+            entry = onDisk.remove(url);
+        }
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(entry != null ? entry.file : fileFor(url));
+        } catch (IOException e) {
+            System.err.println("Could not delete cache file: " + e.getMessage());
+        }
+    }
+
+    // the server answered 304 Not Modified for a cached entry
+    public void recordRevalidation() {
+        revalidations.incrementAndGet();
+    }
+
+    public long getHitCount() {
+        return memoryHits.get() + diskHits.get();
+    }
+
+    public long getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getRevalidationCount() {
+        return revalidations.get();
+    }
+
+    public long getStoreCount() {
+        return stores.get();
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{" +
+                "memoryHits=" + memoryHits +
+                ", diskHits=" + diskHits +
+                ", misses=" + misses +
+                ", revalidations=" + revalidations +
+                ", stores=" + stores +
+                ", memoryBytes=" + getMemoryBytes() +
+                '}';
+    }
+
+    private synchronized void remember(Entry entry) {
+        forget(entry.getUrl());
+        if (entry.size() > maxMemoryBytes) {
+            return; // too large for the memory tier, stays on disk only
+        }
+        memory.put(entry.getUrl(), entry);
+        memoryBytes += entry.size();
+
+        Iterator<Entry> leastRecentlyUsed = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes && leastRecentlyUsed.hasNext()) {
+            memoryBytes -= leastRecentlyUsed.next().size();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    private Entry readFromDisk(String url) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = fileFor(url);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return readHeader(in, url, file);
+        } catch (IOException e) {
+            System.err.println("Could not read cache file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // everything in front of the body, null if the file is not an entry for the url
+    private static Entry readHeader(DataInputStream in, String url, Path file) throws IOException {
+        if (in.readInt() != FORMAT_VERSION || !url.equals(in.readUTF())) {
+            return null;
+        }
+        String etag = emptyToNull(in.readUTF());
+        String lastModified = emptyToNull(in.readUTF());
+        long storedAt = in.readLong();
+        return new Entry(url, etag, lastModified, storedAt, null, file, in.readInt());
+    }
+
+    private void writeToDisk(Entry entry) {
+        if (directory == null || entry.size() > maxDiskBytes) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path file = fileFor(entry.getUrl());
+            Path temp = Files.createTempFile(directory, "entry", ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(stream)) {
+                writeHeader(out, entry.getUrl(), entry.getEtag(), entry.getLastModified(), entry.getStoredAt(), entry.size());
+                out.write(entry.body);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                onDisk.put(entry.getUrl(), new Entry(entry.getUrl(), entry.getEtag(), entry.getLastModified(),
+                        entry.getStoredAt(), null, file, entry.size()));
+            }
+            trimDisk();
+        } catch (IOException e) {
+            System.err.println("Could not write cache file: " + e.getMessage());
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, String url, String etag, String lastModified, long storedAt,
+                                    int size) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(url);
+        out.writeUTF(nullToEmpty(etag));
+        out.writeUTF(nullToEmpty(lastModified));
+        out.writeLong(storedAt);
+        out.writeInt(size);
+    }
+
+    // a streamed entry replaces both tiers, a body too large for memory leaves no older one there
+    private synchronized void stored(Entry entry) {
+        onDisk.put(entry.getUrl(), new Entry(entry.getUrl(), entry.getEtag(), entry.getLastModified(),
+                entry.getStoredAt(), null, entry.file, entry.size()));
+        if (entry.body != null) {
+            remember(entry);
+        } else {
+            forget(entry.getUrl());
+        }
+    }
+
+    private synchronized void forget(String url) {
+        Entry previous = memory.remove(url);
+        if (previous != null) {
+            memoryBytes -= previous.size();
+        }
+    }
+
+    private synchronized void trimDisk() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(path -> path.toString().endsWith(".cache")).forEach(files::add);
+        }
+        long total = 0;
+        Map<Path, Long> sizes = new LinkedHashMap<>();
+        for (Path file : files) {
+            long size = Files.size(file);
+            sizes.put(file, size);
+            total += size;
+        }
+        if (total <= maxDiskBytes) {
+            return;
+        }
+        files.sort(Comparator.comparing(ResponseCache::lastModified));
+        for (Path file : files) {
+            if (total <= maxDiskBytes) {
+                break;
+            }
+            Files.deleteIfExists(file);
+            onDisk.values().removeIf(entry -> entry.file.equals(file));
+            total -= sizes.get(file);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path fileFor(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + ".cache");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
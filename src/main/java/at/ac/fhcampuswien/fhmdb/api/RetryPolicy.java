@@ -0,0 +1,39 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// When and how long to wait before a failed GET is sent again. The pause grows exponentially from baseMillis
+// up to maxMillis and is drawn at random below that cap ("full jitter"), so clients that failed together
+// do not come back together. No attempt starts after budgetMillis, counted from the first one.
+class RetryPolicy {
+    private final int maxAttempts;
+    private final long baseMillis;
+    private final long maxMillis;
+    private final long budgetMillis;
+
+    RetryPolicy(int maxAttempts, long baseMillis, long maxMillis, long budgetMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseMillis = baseMillis;
+        this.maxMillis = maxMillis;
+        this.budgetMillis = budgetMillis;
+    }
+
+    // timeouts, overload and server errors may go away, other statuses will be the same next time
+    static boolean isRetryable(int statusCode) {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+
+    // the pause after the given failed attempt (1 = first), -1 if there should be no further attempt
+    long pauseMillis(int failedAttempt, long elapsedMillis) {
+        if (failedAttempt >= maxAttempts) {
+            return -1;
+        }
+        long cap = Math.min(maxMillis, baseMillis << Math.min(failedAttempt - 1, 30));
+        long pause = ThreadLocalRandom.current().nextLong(cap + 1);
+        return elapsedMillis + pause < budgetMillis ? pause : -1;
+    }
+
+    long getBudgetMillis() {
+        return budgetMillis;
+    }
+}
@@ -0,0 +1,136 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Requests for the same key that overlap share one call, and a finished result of at most maxMemoMovies
+// movies is reused for ttlMillis. Every caller gets a future and a list of its own, so callers cannot disturb
+// each other: the shared call is only cancelled once every caller waiting for it cancelled.
+class SingleFlight {
+    private final long ttlMillis;
+    private final int maxMemos;
+    private final int maxMemoMovies; // larger results are not kept, every hit would copy them
+    private final Map<String, Flight> inFlight = new HashMap<>();
+    private final LinkedHashMap<String, Memo> memos = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong memoHits = new AtomicLong();
+
+    SingleFlight(long ttlMillis, int maxMemos, int maxMemoMovies) {
+        this.ttlMillis = ttlMillis;
+        this.maxMemos = maxMemos;
+        this.maxMemoMovies = maxMemoMovies;
+    }
+
+    // the memoized result, the running call for the key, or a new one started with call
+    synchronized CompletableFuture<List<Movie>> get(String key, Supplier<CompletableFuture<List<Movie>>> call) {
+        dropExpired();
+        Memo memo = memos.get(key);
+        if (memo != null) {
+            memoHits.incrementAndGet();
+            return CompletableFuture.completedFuture(StaleMovies.copyOf(memo.movies));
+        }
+
+        Flight flight = inFlight.get(key);
+        // a finished call may still be registered until its cleanup ran, it is not joined any more
+        if (flight == null || flight.source.isDone()) {
+            calls.incrementAndGet();
+            flight = new Flight(key, call.get());
+            inFlight.put(key, flight);
+            Flight started = flight;
+            flight.source.whenComplete((movies, throwable) -> finished(started, movies));
+        } else {
+            joined.incrementAndGet();
+        }
+        return flight.subscribe();
+    }
+
+    long getCallCount() {
+        return calls.get();
+    }
+
+    long getJoinedCount() {
+        return joined.get();
+    }
+
+    long getMemoHitCount() {
+        return memoHits.get();
+    }
+
+    private synchronized void finished(Flight flight, List<Movie> movies) {
+        inFlight.remove(flight.key, flight);
+        dropExpired();
+        // failed requests come back as an empty list or a stale one from the cache, those are not worth remembering
+        if (movies == null || movies.isEmpty() || movies instanceof StaleMovies || ttlMillis <= 0
+                || movies.size() > maxMemoMovies) {
+            return;
+        }
+        memos.put(flight.key, new Memo(movies, System.currentTimeMillis()));
+        Iterator<Memo> leastRecentlyUsed = memos.values().iterator();
+        while (memos.size() > maxMemos) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    // expired results would otherwise be held until maxMemos newer ones pushed them out
+    private void dropExpired() {
+        long now = System.currentTimeMillis();
+        memos.values().removeIf(memo -> now - memo.storedAt > ttlMillis);
+    }
+
+    private synchronized void unsubscribe(Flight flight) {
+        if (--flight.subscribers == 0 && !flight.source.isDone()) {
+            inFlight.remove(flight.key, flight);
+            flight.source.cancel(true);
+        }
+    }
+
+    private final class Flight {
+        private final String key;
+        private final CompletableFuture<List<Movie>> source;
+        private int subscribers; // callers still waiting, guarded by SingleFlight.this
+
+        Flight(String key, CompletableFuture<List<Movie>> source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        CompletableFuture<List<Movie>> subscribe() {
+            subscribers++;
+            CompletableFuture<List<Movie>> result = new CompletableFuture<>();
+            source.whenComplete((movies, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    result.complete(StaleMovies.copyOf(movies));
+                }
+            });
+            result.whenComplete((movies, throwable) -> {
+                if (result.isCancelled()) {
+                    unsubscribe(this);
+                }
+            });
+            return result;
+        }
+    }
+
+    private static final class Memo {
+        private final List<Movie> movies;
+        private final long storedAt;
+
+        Memo(List<Movie> movies, long storedAt) {
+            this.movies = movies;
+            this.storedAt = storedAt;
+        }
+    }
+}
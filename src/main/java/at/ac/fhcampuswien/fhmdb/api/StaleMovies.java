@@ -0,0 +1,33 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// A result that does not come from the server but from the cache, because the server could not be reached.
+// storedAt is when the server delivered it.
+public class StaleMovies extends ArrayList<Movie> {
+    private final Instant storedAt;
+
+    StaleMovies(Collection<Movie> movies, Instant storedAt) {
+        super(movies);
+        this.storedAt = storedAt;
+    }
+
+    public Instant getStoredAt() {
+        return storedAt;
+    }
+
+    // when a stale result was delivered by the server, null for a fresh result
+    public static Instant staleSince(List<Movie> movies) {
+        return movies instanceof StaleMovies ? ((StaleMovies) movies).storedAt : null;
+    }
+
+    // a copy that keeps the marker
+    static List<Movie> copyOf(List<Movie> movies) {
+        return movies instanceof StaleMovies ? new StaleMovies(movies, ((StaleMovies) movies).storedAt) : new ArrayList<>(movies);
+    }
+}
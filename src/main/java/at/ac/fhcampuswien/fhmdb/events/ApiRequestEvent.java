@@ -0,0 +1,46 @@
+package at.ac.fhcampuswien.fhmdb.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// one attempt of a /movies request, from sending it until the body was read or the attempt failed
+@Name("fhmdb.ApiRequest")
+@Label("API Request")
+@Category({"FHMDb", "API"})
+public class ApiRequestEvent extends Event {
+    @Label("URL")
+    public String url;
+
+    @Label("Query")
+    public String query;
+
+    @Label("Genre")
+    public String genre;
+
+    @Label("Release Year")
+    public String releaseYear;
+
+    @Label("Rating")
+    public String rating;
+
+    @Label("Attempt")
+    @Description("1 for the first try, higher for retries")
+    public int attempt;
+
+    @Label("Status")
+    @Description("HTTP status, 0 if no response arrived")
+    public int status;
+
+    @Label("Bytes")
+    @Description("Size of the decoded body, -1 if it was not read completely")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    @Description("ok, notModified, clientError, failed or cancelled")
+    public String outcome;
+}
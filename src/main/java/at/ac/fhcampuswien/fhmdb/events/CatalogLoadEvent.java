@@ -0,0 +1,28 @@
+package at.ac.fhcampuswien.fhmdb.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// the whole catalog arriving in the app: requested or read, parsed, indexed and shown.
+// A catalog that follows an earlier one is applied as a delta, its size is in added, changed and removed
+@Name("fhmdb.CatalogLoad")
+@Label("Catalog Load")
+@Category({"FHMDb", "Catalog"})
+public class CatalogLoadEvent extends Event {
+    @Label("Source")
+    public String source; // server, stale, store or changes (from the change feed)
+
+    @Label("Movies")
+    public int movies;
+
+    @Label("Added")
+    public int added;
+
+    @Label("Changed")
+    public int changed;
+
+    @Label("Removed")
+    public int removed;
+}
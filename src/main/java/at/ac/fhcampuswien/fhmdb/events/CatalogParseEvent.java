@@ -0,0 +1,20 @@
+package at.ac.fhcampuswien.fhmdb.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// decoding a JSON array of movies, from a response while it downloads or from the cache
+@Name("fhmdb.CatalogParse")
+@Label("Catalog Parse")
+@Category({"FHMDb", "Catalog"})
+public class CatalogParseEvent extends Event {
+    @Label("Movies")
+    public int movies;
+
+    @Label("Window")
+    @Description("Only a part of the array was decoded")
+    public boolean window;
+}
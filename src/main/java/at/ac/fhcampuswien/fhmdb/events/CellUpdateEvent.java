@@ -0,0 +1,18 @@
+package at.ac.fhcampuswien.fhmdb.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// a list cell bound to a movie, happens for every row that scrolls into view
+@Name("fhmdb.CellUpdate")
+@Label("Cell Update")
+@Category({"FHMDb", "List"})
+public class CellUpdateEvent extends Event {
+    @Label("Movie Id")
+    public String movieId;
+
+    @Label("Expanded")
+    public boolean expanded;
+}
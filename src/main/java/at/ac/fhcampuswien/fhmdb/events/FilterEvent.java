@@ -0,0 +1,30 @@
+package at.ac.fhcampuswien.fhmdb.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// the search and filter criteria applied to a catalog
+@Name("fhmdb.Filter")
+@Label("Filter")
+@Category({"FHMDb", "List"})
+public class FilterEvent extends Event {
+    @Label("Query")
+    public String query;
+
+    @Label("Genre")
+    public String genre;
+
+    @Label("Release Year")
+    public int releaseYear; // 0 = any
+
+    @Label("Rating From")
+    public double ratingFrom; // -1 = any
+
+    @Label("Input Size")
+    public int inputSize;
+
+    @Label("Output Size")
+    public int outputSize;
+}
@@ -0,0 +1,26 @@
+package at.ac.fhcampuswien.fhmdb.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// ordering the shown list by a field and direction
+@Name("fhmdb.Sort")
+@Label("Sort")
+@Category({"FHMDb", "List"})
+public class SortEvent extends Event {
+    @Label("Field")
+    public String field;
+
+    @Label("Direction")
+    public String direction;
+
+    @Label("Size")
+    public int size;
+
+    @Label("Reordered")
+    @Description("False if only the direction was flipped")
+    public boolean reordered;
+}
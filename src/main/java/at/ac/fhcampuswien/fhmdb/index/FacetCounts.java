@@ -0,0 +1,32 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+
+import java.util.Map;
+
+// result of FacetIndex.count: number of movies per genre and per release year
+public class FacetCounts {
+    private final Map<Genre, Integer> genreCounts;
+    private final Map<Integer, Integer> yearCounts;
+
+    public FacetCounts(Map<Genre, Integer> genreCounts, Map<Integer, Integer> yearCounts) {
+        this.genreCounts = genreCounts;
+        this.yearCounts = yearCounts;
+    }
+
+    public int getGenreCount(Genre genre) {
+        return genreCounts.getOrDefault(genre, 0);
+    }
+
+    public int getYearCount(int releaseYear) {
+        return yearCounts.getOrDefault(releaseYear, 0);
+    }
+
+    public Map<Genre, Integer> getGenreCounts() {
+        return genreCounts;
+    }
+
+    public Map<Integer, Integer> getYearCounts() {
+        return yearCounts;
+    }
+}
@@ -0,0 +1,229 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Precomputed bitmaps over a movie list: one per genre, one per release year and one per rating bucket.
+// Bit i stands for allMovies.get(i), so combining filters is an AND over a few long arrays.
+// Single positions can be set and cleared later (add, remove), the bitmaps grow when a position is added
+// past their end.
+public class FacetIndex {
+    private static final int RATING_BUCKETS = 11; // ratings 0 to 10, bucket = floor(rating)
+
+    private final List<Movie> movies;
+    private int words;
+    private long[] all;
+    private final long[][] byGenre = new long[Genre.values().length][];
+    private final Map<Integer, long[]> byYear = new TreeMap<>();
+    private final long[][] ratingAtLeast = new long[RATING_BUCKETS][]; // ratingAtLeast[r] = rating >= r
+
+    public FacetIndex(List<Movie> movies) {
+        this.movies = movies;
+        this.words = (movies.size() + 63) >>> 6;
+        this.all = new long[words];
+        for (int i = 0; i < byGenre.length; i++) {
+            byGenre[i] = new long[words];
+        }
+        long[][] byRatingBucket = new long[RATING_BUCKETS][words];
+
+        for (int position = 0; position < movies.size(); position++) {
+            Movie movie = movies.get(position);
+            set(all, position);
+            for (int genres = movie.getGenreMask(); genres != 0; genres &= genres - 1) {
+                set(byGenre[Integer.numberOfTrailingZeros(genres)], position);
+            }
+            if (movie.getReleaseYear() > 0) {
+                set(byYear.computeIfAbsent(movie.getReleaseYear(), year -> new long[words]), position);
+            }
+            set(byRatingBucket[bucket(movie.getRating())], position);
+        }
+
+        // cumulative from the top, so "rating from" is a single bitmap
+        long[] atLeast = new long[words];
+        for (int bucket = RATING_BUCKETS - 1; bucket >= 0; bucket--) {
+            or(atLeast, byRatingBucket[bucket]);
+            ratingAtLeast[bucket] = atLeast.clone();
+        }
+    }
+
+    // sets the bits of the movie at position, which must not be set yet
+    void add(int position, Movie movie) {
+        if (position >>> 6 >= words) {
+            grow((position >>> 6) + 1);
+        }
+        set(all, position);
+        for (int genres = movie.getGenreMask(); genres != 0; genres &= genres - 1) {
+            set(byGenre[Integer.numberOfTrailingZeros(genres)], position);
+        }
+        if (movie.getReleaseYear() > 0) {
+            set(byYear.computeIfAbsent(movie.getReleaseYear(), year -> new long[words]), position);
+        }
+        for (int bucket = bucket(movie.getRating()); bucket >= 0; bucket--) {
+            set(ratingAtLeast[bucket], position);
+        }
+    }
+
+    // clears the bits of the movie that was at position, a year without movies is dropped from the counts
+    void remove(int position, Movie movie) {
+        clear(all, position);
+        for (int genres = movie.getGenreMask(); genres != 0; genres &= genres - 1) {
+            clear(byGenre[Integer.numberOfTrailingZeros(genres)], position);
+        }
+        long[] year = byYear.get(movie.getReleaseYear());
+        if (year != null) {
+            clear(year, position);
+            if (cardinality(year) == 0) {
+                byYear.remove(movie.getReleaseYear());
+            }
+        }
+        for (int bucket = bucket(movie.getRating()); bucket >= 0; bucket--) {
+            clear(ratingAtLeast[bucket], position);
+        }
+    }
+
+    // at least doubles, so adding movies one by one stays linear
+    private void grow(int minWords) {
+        words = Math.max(minWords, words * 2);
+        all = Arrays.copyOf(all, words);
+        for (int i = 0; i < byGenre.length; i++) {
+            byGenre[i] = Arrays.copyOf(byGenre[i], words);
+        }
+        byYear.replaceAll((year, bitmap) -> Arrays.copyOf(bitmap, words));
+        for (int i = 0; i < ratingAtLeast.length; i++) {
+            ratingAtLeast[i] = Arrays.copyOf(ratingAtLeast[i], words);
+        }
+    }
+
+    public boolean isBuiltFor(List<Movie> movies) {
+        return this.movies == movies;
+    }
+
+    // movies matching all given criteria (null = no restriction), in catalog order.
+    // candidates are sorted catalog positions, e.g. from SearchIndex.searchPositions
+    public List<Movie> filter(int[] candidates, Genre genre, Integer releaseYear, Double ratingFrom) {
+        long[] result = select(candidates, genre, releaseYear, ratingFrom);
+        List<Movie> filtered = new ArrayList<>(cardinality(result));
+        for (int word = 0; word < words; word++) {
+            long bits = result[word];
+            while (bits != 0) {
+                filtered.add(movies.get((word << 6) + Long.numberOfTrailingZeros(bits)));
+                bits &= bits - 1;
+            }
+        }
+        return filtered;
+    }
+
+    // how many movies each genre and each year would yield, given the other selected criteria
+    public FacetCounts count(int[] candidates, Genre genre, Integer releaseYear, Double ratingFrom) {
+        long[] withoutGenre = select(candidates, null, releaseYear, ratingFrom);
+        Map<Genre, Integer> genreCounts = new EnumMap<>(Genre.class);
+        for (Genre each : Genre.values()) {
+            genreCounts.put(each, andCardinality(withoutGenre, byGenre[each.ordinal()]));
+        }
+
+        long[] withoutYear = select(candidates, genre, null, ratingFrom);
+        Map<Integer, Integer> yearCounts = new TreeMap<>();
+        byYear.forEach((year, bitmap) -> yearCounts.put(year, andCardinality(withoutYear, bitmap)));
+
+        return new FacetCounts(genreCounts, yearCounts);
+    }
+
+    private long[] select(int[] candidates, Genre genre, Integer releaseYear, Double ratingFrom) {
+        long[] result;
+        if (candidates == null) {
+            result = all.clone();
+        } else {
+            result = new long[words];
+            for (int position : candidates) {
+                set(result, position);
+            }
+        }
+        if (genre != null) {
+            and(result, byGenre[genre.ordinal()]);
+        }
+        if (releaseYear != null) {
+            long[] year = byYear.get(releaseYear);
+            if (year == null) {
+                return new long[words];
+            }
+            and(result, year);
+        }
+        if (ratingFrom != null) {
+            andRatingFrom(result, ratingFrom);
+        }
+        return result;
+    }
+
+    private void andRatingFrom(long[] result, double ratingFrom) {
+        if (ratingFrom <= 0) {
+            return;
+        }
+        if (ratingFrom > RATING_BUCKETS - 1) {
+            Arrays.fill(result, 0);
+            return;
+        }
+        int bucket = (int) Math.ceil(ratingFrom);
+        long[] atLeast = bucket < RATING_BUCKETS ? ratingAtLeast[bucket].clone() : new long[words];
+        if (bucket != ratingFrom) { // e.g. 7.5: bucket 7 only partly qualifies, check those movies one by one
+            long[] partial = ratingAtLeast[bucket - 1];
+            for (int word = 0; word < words; word++) {
+                long bits = partial[word] & ~atLeast[word] & result[word];
+                while (bits != 0) {
+                    int position = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    if (movies.get(position).getRating() >= ratingFrom) {
+                        set(atLeast, position);
+                    }
+                    bits &= bits - 1;
+                }
+            }
+        }
+        and(result, atLeast);
+    }
+
+    private static int bucket(double rating) {
+        return Math.max(0, Math.min(RATING_BUCKETS - 1, (int) Math.floor(rating)));
+    }
+
+    private static void set(long[] bitmap, int position) {
+        bitmap[position >>> 6] |= 1L << position;
+    }
+
+    private static void clear(long[] bitmap, int position) {
+        bitmap[position >>> 6] &= ~(1L << position);
+    }
+
+    private static void and(long[] target, long[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= other[i];
+        }
+    }
+
+    private static void or(long[] target, long[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= other[i];
+        }
+    }
+
+    private static int cardinality(long[] bitmap) {
+        int count = 0;
+        for (long word : bitmap) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static int andCardinality(long[] a, long[] b) {
+        int count = 0;
+        for (int i = 0; i < a.length; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,81 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Search as you type: remembers the results of the last few queries. A query that extends one of them
+// ("the" -> "the f") only re-checks the movies that matched before instead of going through the index
+// again, and going back with backspace finds the earlier result right away.
+class IncrementalSearch {
+    private static final int REMEMBERED_QUERIES = 8;
+
+    private final SearchIndex index;
+    private final LinkedHashMap<String, int[]> recent = new LinkedHashMap<>(16, 0.75f, true); // folded query -> positions
+
+    IncrementalSearch(SearchIndex index) {
+        this.index = index;
+    }
+
+    // same result as SearchIndex.searchPositions
+    synchronized int[] searchPositions(String query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        String folded = SearchIndex.fold(query);
+        int[] positions = recent.get(folded);
+        if (positions != null) {
+            return positions;
+        }
+
+        // the smallest remembered result of a query contained in this one, if there is any
+        int[] base = null;
+        for (Map.Entry<String, int[]> entry : recent.entrySet()) {
+            if (folded.contains(entry.getKey()) && (base == null || entry.getValue().length < base.length)) {
+                base = entry.getValue();
+            }
+        }
+        positions = base != null ? index.refinePositions(base, folded) : index.searchPositions(folded);
+
+        recent.put(folded, positions);
+        Iterator<int[]> leastRecentlyUsed = recent.values().iterator();
+        while (recent.size() > REMEMBERED_QUERIES) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+        }
+        return positions;
+    }
+
+    // the movies at the given sorted positions were added, replaced or removed: only those positions are
+    // checked again for every remembered query, the rest of each result stays as it is
+    synchronized void update(int[] changedPositions) {
+        for (Map.Entry<String, int[]> entry : recent.entrySet()) {
+            int[] matching = index.refinePositions(changedPositions, entry.getKey());
+            entry.setValue(merge(entry.getValue(), changedPositions, matching));
+        }
+    }
+
+    // positions without the changed ones, plus the changed ones that match now; all arrays sorted
+    private static int[] merge(int[] positions, int[] changed, int[] matching) {
+        int[] result = new int[positions.length + matching.length];
+        int size = 0;
+        int c = 0;
+        int m = 0;
+        for (int position : positions) {
+            while (c < changed.length && changed[c] < position) {
+                c++;
+            }
+            while (m < matching.length && matching[m] < position) {
+                result[size++] = matching[m++];
+            }
+            if (c == changed.length || changed[c] != position) {
+                result[size++] = position;
+            }
+        }
+        while (m < matching.length) {
+            result[size++] = matching[m++];
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,326 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.events.FilterEvent;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.metrics.Timer;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.SortField;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// all indexes over one loaded catalog, built together and updated together when the catalog changes.
+// The search and facet indexes work with slots: a changed movie takes the slot of its earlier version, new
+// movies get new slots at the end and a removed movie leaves an empty slot, so an update only touches the
+// slots of the movies that differ. Updates wait for running queries and the other way round.
+public class MovieIndex {
+    private static final Timer buildTimer = Metrics.timer("index.build");
+    private static final Timer updateTimer = Metrics.timer("index.update");
+    private static final Timer searchTimer = Metrics.timer("filter.search");
+    private static final Timer facetTimer = Metrics.timer("filter.facets");
+    private static final Timer rankTimer = Metrics.timer("filter.rank");
+    // ranked search indexes take seconds for a million movies, they are built here and not by the queries
+    private static final ExecutorService rankingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "movie-ranking");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<Movie> movies; // the catalog: the movies in slot order, without the empty slots
+    private final List<Movie> slots; // null where a movie was removed
+    private final SearchIndex searchIndex;
+    private final FacetIndex facetIndex;
+    private final IncrementalSearch incrementalSearch;
+    private final SortKeys sortKeys;
+    private volatile RankedSearch rankedSearch; // built over a copy of the slots by prepareRanking, dropped by an update
+    private CompletableFuture<Void> ranking; // the running or finished build, guarded by this
+    private int rankingVersion; // counts updates, a ranking built before the last one is thrown away
+    private boolean rankingWanted; // an update starts a new build
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Integer> slotsById; // built by the first update
+    private int emptySlots;
+
+    public MovieIndex(List<Movie> movies) {
+        long start = Metrics.start();
+        this.movies = movies;
+        this.slots = new ArrayList<>(movies);
+        this.searchIndex = new SearchIndex(slots);
+        this.facetIndex = new FacetIndex(slots);
+        this.incrementalSearch = new IncrementalSearch(searchIndex);
+        this.sortKeys = new SortKeys(movies);
+        buildTimer.stop(start);
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public boolean isBuiltFor(List<Movie> movies) {
+        return this.movies == movies;
+    }
+
+    // Applies a delta keyed by Movie.getId: upserted are new movies and new versions of movies in the catalog,
+    // removedIds the ids of movies that are gone. The catalog (getMovies) is a new list afterwards. Returns
+    // this index, or a new one built over the catalog once more than half of the slots are empty.
+    public MovieIndex update(Collection<Movie> upserted, Collection<String> removedIds) {
+        long start = Metrics.start();
+        List<Movie> catalog;
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (slotsById == null) {
+                slotsById = new HashMap<>(slots.size() * 2);
+                for (int slot = 0; slot < slots.size(); slot++) {
+                    if (slots.get(slot) != null) {
+                        slotsById.put(slots.get(slot).getId(), slot);
+                    }
+                }
+            }
+
+            SearchIndex.IntList changedSlots = new SearchIndex.IntList();
+            for (String id : removedIds) {
+                Integer slot = slotsById.remove(id);
+                if (slot != null) {
+                    facetIndex.remove(slot, slots.set(slot, null));
+                    emptySlots++;
+                    changedSlots.add(slot);
+                }
+            }
+            for (Movie movie : upserted) {
+                Integer slot = slotsById.get(movie.getId());
+                if (slot != null) {
+                    facetIndex.remove(slot, slots.set(slot, movie));
+                } else {
+                    slot = slots.size();
+                    slots.add(movie);
+                    slotsById.put(movie.getId(), slot);
+                }
+                facetIndex.add(slot, movie);
+                searchIndex.index(slot);
+                changedSlots.add(slot);
+            }
+
+            catalog = new ArrayList<>(slots.size() - emptySlots);
+            for (Movie movie : slots) {
+                if (movie != null) {
+                    catalog.add(movie);
+                }
+            }
+            movies = catalog;
+            synchronized (this) {
+                rankingVersion++;
+                rankedSearch = null;
+                if (ranking != null && ranking.isDone()) {
+                    ranking = null;
+                }
+            }
+            incrementalSearch.update(changedSlots.sortedDistinct());
+            sortKeys.update(catalog, List.copyOf(upserted));
+            compact = emptySlots * 2 > slots.size(); // queries would mostly skip empty slots by now
+        } finally {
+            lock.writeLock().unlock();
+        }
+        updateTimer.stop(start);
+        if (compact) {
+            return new MovieIndex(catalog);
+        }
+        synchronized (this) {
+            if (rankingWanted) {
+                prepareRanking();
+            }
+        }
+        return this;
+    }
+
+    public List<Movie> search(String query) {
+        if (query == null || query.isEmpty()) {
+            return movies;
+        }
+        lock.readLock().lock();
+        try {
+            return searchIndex.search(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // null or empty criteria do not restrict the result, a query extending a recent one refines its result
+    public List<Movie> filter(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        if ((query == null || query.isEmpty()) && genre == null && releaseYear == null
+                && (ratingFrom == null || ratingFrom <= 0)) {
+            return movies; // the catalog itself, so callers can recognize it
+        }
+        lock.readLock().lock();
+        try {
+            return filterLocked(query, genre, releaseYear, ratingFrom);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Movie> filterLocked(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        FilterEvent event = new FilterEvent();
+        event.begin();
+        long start = Metrics.start();
+        int[] positions = incrementalSearch.searchPositions(query);
+        searchTimer.stop(start);
+        start = Metrics.start();
+        List<Movie> result = facetIndex.filter(positions, genre, releaseYear, ratingFrom);
+        facetTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.query = query;
+            event.genre = genre != null ? genre.name() : null;
+            event.releaseYear = releaseYear != null ? releaseYear : 0;
+            event.ratingFrom = ratingFrom != null ? ratingFrom : -1;
+            event.inputSize = movies.size();
+            event.outputSize = result.size();
+            event.commit();
+        }
+        return result;
+    }
+
+    // The (at most) limit movies that match the query best, best first. Query words may contain typos and
+    // are also looked for in directors, writers and mainCast. Genre, year and rating restrict the result as
+    // in filter. Until the ranking is built (prepareRanking) and for a query without words, the first movies
+    // of the filter result are returned instead, so a query never waits for the build.
+    public List<Movie> rank(String query, Genre genre, Integer releaseYear, Double ratingFrom, int limit) {
+        return rankedQuery(query, genre, releaseYear, ratingFrom).window(0, limit);
+    }
+
+    // the result of rank for paging through it; it stays with the ranking (or the filtering) it started with
+    public RankedQuery rankedQuery(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        RankedSearch ranked = rankedSearch;
+        if (ranked == null) {
+            prepareRanking();
+        }
+        if (SearchIndex.tokenize(SearchIndex.fold(query)).isEmpty()) {
+            ranked = null;
+        }
+        return new RankedQuery(ranked, query, genre, releaseYear, ratingFrom);
+    }
+
+    // One ranked query read window by window. Windows never mix two orders when the ranking is built or
+    // rebuilt while scrolling. The first window ranks only the best movies, the whole result is ranked once
+    // when a later window is asked for and the other windows are cut from it.
+    public final class RankedQuery {
+        private final RankedSearch ranked; // null: the filter result instead
+        private final String query;
+        private final Genre genre;
+        private final Integer releaseYear;
+        private final Double ratingFrom;
+        private List<Movie> all; // guarded by this
+
+        private RankedQuery(RankedSearch ranked, String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+            this.ranked = ranked;
+            this.query = query;
+            this.genre = genre;
+            this.releaseYear = releaseYear;
+            this.ratingFrom = ratingFrom;
+        }
+
+        public synchronized List<Movie> window(int offset, int limit) {
+            if (all == null && offset == 0 && ranked != null) {
+                return best(limit);
+            }
+            if (all == null) {
+                all = ranked != null ? best(Integer.MAX_VALUE) : filter(query, genre, releaseYear, ratingFrom);
+            }
+            int from = Math.min(offset, all.size());
+            return new ArrayList<>(all.subList(from, Math.min(all.size(), from + limit)));
+        }
+
+        // the ranking has its own copy of the slots, it needs no lock
+        private List<Movie> best(int limit) {
+            long start = Metrics.start();
+            int[] positions = ranked.search(query, movie -> (genre == null || movie.hasGenre(genre))
+                    && (releaseYear == null || movie.getReleaseYear() == releaseYear)
+                    && (ratingFrom == null || ratingFrom <= 0 || movie.getRating() >= ratingFrom), limit);
+            List<Movie> result = new ArrayList<>(positions.length);
+            for (int position : positions) {
+                result.add(ranked.movie(position));
+            }
+            rankTimer.stop(start);
+            return result;
+        }
+    }
+
+    // starts building what rank needs in the background, unless it is built or being built already;
+    // the build is repeated after every update from now on
+    public synchronized CompletableFuture<Void> prepareRanking() {
+        rankingWanted = true;
+        if (ranking == null) {
+            ranking = CompletableFuture.runAsync(this::buildRanking, rankingExecutor);
+        }
+        return ranking;
+    }
+
+    // builds over a copy of the slots without holding any lock, and starts over if an update came in meanwhile
+    private void buildRanking() {
+        while (true) {
+            List<Movie> copy;
+            int version;
+            lock.readLock().lock();
+            try {
+                copy = new ArrayList<>(slots);
+                synchronized (this) {
+                    version = rankingVersion;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            RankedSearch built = new RankedSearch(copy);
+            synchronized (this) {
+                if (version == rankingVersion) {
+                    rankedSearch = built;
+                    return;
+                }
+            }
+        }
+    }
+
+    public FacetCounts count(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        lock.readLock().lock();
+        try {
+            return facetIndex.count(incrementalSearch.searchPositions(query), genre, releaseYear, ratingFrom);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // the counts for what rank finds when paged to the end, the counts of count as long as rank filters
+    public FacetCounts countRanked(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        RankedSearch ranked = rankedSearch;
+        if (ranked == null || SearchIndex.tokenize(SearchIndex.fold(query)).isEmpty()) {
+            return count(query, genre, releaseYear, ratingFrom);
+        }
+        int[] positions = ranked.matches(query);
+        lock.readLock().lock();
+        try {
+            if (ranked != rankedSearch) { // an update moved the slots the positions refer to
+                return facetIndex.count(incrementalSearch.searchPositions(query), genre, releaseYear, ratingFrom);
+            }
+            return facetIndex.count(positions, genre, releaseYear, ratingFrom);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // positions of the given movies (the catalog or a part of it) in ascending order of field
+    public int[] sortOrder(List<Movie> movies, SortField field) {
+        lock.readLock().lock();
+        try {
+            return sortKeys.order(movies, field);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Fork-join versions of the scans over the catalog. Lists with at least -Dfhmdb.parallelThreshold elements
+// (default 100000) are split into chunks that are processed on a pool of -Dfhmdb.parallelism threads
+// (default: one per core). The pool is not the common pool, so catalog work never competes with
+// CompletableFuture callbacks. Chunks are merged in order, so every result is exactly the sequential one.
+public final class Parallel {
+    private static final int MIN_CHUNK = 4096;
+
+    private static final ForkJoinPool pool = new ForkJoinPool(
+            Integer.getInteger("fhmdb.parallelism", Runtime.getRuntime().availableProcessors()),
+            forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("movie-worker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+
+    private static volatile int threshold = Integer.getInteger("fhmdb.parallelThreshold", 100_000);
+
+    private Parallel() {
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    // 0 runs everything in parallel, Integer.MAX_VALUE nothing
+    public static void setThreshold(int threshold) {
+        Parallel.threshold = threshold;
+    }
+
+    public static int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public static boolean isParallel(int size) {
+        return size >= threshold && pool.getParallelism() > 1;
+    }
+
+    // positions 0 to size - 1 for which keep is true, ascending
+    public static int[] filterRange(int size, IntPredicate keep) {
+        return filter(null, size, keep);
+    }
+
+    // the positions for which keep is true, in their original order
+    public static int[] filter(int[] positions, IntPredicate keep) {
+        return filter(positions, positions.length, keep);
+    }
+
+    public static <T> List<T> filter(List<T> list, Predicate<? super T> keep) {
+        int[] kept = filterRange(list.size(), index -> keep.test(list.get(index)));
+        List<T> result = new ArrayList<>(kept.length);
+        for (int index : kept) {
+            result.add(list.get(index));
+        }
+        return result;
+    }
+
+    // like a collector: every chunk is collected into its own container, containers are merged left to right
+    public static <T, C> C collect(List<T> list, Supplier<C> create, BiConsumer<C, T> add, BinaryOperator<C> merge) {
+        CollectTask<T, C> task = new CollectTask<>(list, create, add, merge, 0, list.size(), chunkSize(list.size()));
+        return isParallel(list.size()) ? pool.invoke(task) : task.collect();
+    }
+
+    // stable, so equal elements keep their order just like List.sort
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> sorted(List<T> list, Comparator<? super T> comparator) {
+        T[] elements = (T[]) list.toArray();
+        if (isParallel(elements.length)) {
+            T[] buffer = elements.clone();
+            pool.invoke(new SortTask<>(elements, buffer, 0, elements.length, comparator, chunkSize(elements.length)));
+        } else {
+            Arrays.sort(elements, comparator);
+        }
+        return Arrays.asList(elements);
+    }
+
+    private static int[] filter(int[] positions, int size, IntPredicate keep) {
+        FilterTask task = new FilterTask(positions, keep, 0, size, chunkSize(size));
+        return isParallel(size) ? pool.invoke(task) : task.filter();
+    }
+
+    private static int chunkSize(int size) {
+        return Math.max(MIN_CHUNK, size / (pool.getParallelism() * 4));
+    }
+
+    private static final class FilterTask extends RecursiveTask<int[]> {
+        private final int[] positions; // null = 0 to size - 1
+        private final IntPredicate keep;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        FilterTask(int[] positions, IntPredicate keep, int from, int to, int chunk) {
+            this.positions = positions;
+            this.keep = keep;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= chunk) {
+                return filter();
+            }
+            int middle = (from + to) >>> 1;
+            FilterTask left = new FilterTask(positions, keep, from, middle, chunk);
+            left.fork();
+            int[] right = new FilterTask(positions, keep, middle, to, chunk).compute();
+            int[] leftResult = left.join();
+            int[] result = Arrays.copyOf(leftResult, leftResult.length + right.length);
+            System.arraycopy(right, 0, result, leftResult.length, right.length);
+            return result;
+        }
+
+        int[] filter() {
+            int[] result = new int[Math.min(to - from, 16)];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                int position = positions == null ? i : positions[i];
+                if (keep.test(position)) {
+                    if (size == result.length) {
+                        result = Arrays.copyOf(result, Math.min(to - from, size * 2));
+                    }
+                    result[size++] = position;
+                }
+            }
+            return Arrays.copyOf(result, size);
+        }
+    }
+
+    private static final class CollectTask<T, C> extends RecursiveTask<C> {
+        private final List<T> list;
+        private final Supplier<C> create;
+        private final BiConsumer<C, T> add;
+        private final BinaryOperator<C> merge;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        CollectTask(List<T> list, Supplier<C> create, BiConsumer<C, T> add, BinaryOperator<C> merge,
+                    int from, int to, int chunk) {
+            this.list = list;
+            this.create = create;
+            this.add = add;
+            this.merge = merge;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected C compute() {
+            if (to - from <= chunk) {
+                return collect();
+            }
+            int middle = (from + to) >>> 1;
+            CollectTask<T, C> left = new CollectTask<>(list, create, add, merge, from, middle, chunk);
+            left.fork();
+            C right = new CollectTask<>(list, create, add, merge, middle, to, chunk).compute();
+            return merge.apply(left.join(), right);
+        }
+
+        C collect() {
+            C container = create.get();
+            for (int i = from; i < to; i++) {
+                add.accept(container, list.get(i));
+            }
+            return container;
+        }
+    }
+
+    // merge sort: chunks are sorted with Arrays.sort, then merged pairwise, taking the left element on ties
+    private static final class SortTask<T> extends RecursiveAction {
+        private final T[] elements;
+        private final T[] buffer;
+        private final int from;
+        private final int to;
+        private final Comparator<? super T> comparator;
+        private final int chunk;
+
+        SortTask(T[] elements, T[] buffer, int from, int to, Comparator<? super T> comparator, int chunk) {
+            this.elements = elements;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                Arrays.sort(elements, from, to, comparator);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask<>(elements, buffer, from, middle, comparator, chunk),
+                    new SortTask<>(elements, buffer, middle, to, comparator, chunk));
+
+            if (comparator.compare(elements[middle - 1], elements[middle]) <= 0) {
+                return; // already in order
+            }
+            System.arraycopy(elements, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+                    elements[i] = buffer[left++];
+                } else {
+                    elements[i] = buffer[right++];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,620 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Ranked, typo tolerant search over title, description, directors, writers and mainCast.
+// Movies are scored with BM25 over the words of all fields, a word in the title counts three times and one in
+// a name twice. A query word also matches words of the vocabulary within a small edit distance (1 from four
+// letters on, 2 from eight; numbers only match exactly), found through a trigram index over the vocabulary and
+// scored lower the further they are off. The last query word also matches longer words starting with it, for
+// search as you type. Only the best movies are kept, in a heap bounded by the number asked for.
+// Rare query words are scored first by walking their postings. Once no movie that was not found yet could
+// reach the current best ones, the remaining words are only looked up for the movies found. Common words
+// (long posting lists) are read in descending order of impact instead and stop early, see walkByImpact.
+class RankedSearch {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int NAME_WEIGHT = 2;
+    private static final float PREFIX_WEIGHT = 0.8f; // a word still being typed
+    private static final int MAX_PREFIX_TERMS = 32; // most frequent words a prefix stands for
+    private static final int GRAM = 3;
+    private static final int COMMON_POSTINGS = 4096; // query words with more postings are read by impact
+
+    private final List<Movie> movies;
+    private final String[] terms;          // vocabulary, sorted
+    private final int[][] postings;        // postings[term] = ascending positions
+    private final byte[][] frequencies;    // weighted number of occurrences per posting, at most 255
+    private final float[] norms;           // position -> K1 * (1 - B + B * length / average length)
+    private final float[] maxImpacts;      // the highest impact in the postings of each word
+    private final int[][] impactOrders;    // impactOrder of the words with long posting lists
+    private final Map<String, int[]> grams; // trigram of "$term$" -> ascending term ids
+
+    // scratch space of a query, queries run one after another
+    private final float[] scores;
+    private final float[] tokenScores;
+    private final SearchIndex.IntList found = new SearchIndex.IntList();
+    private final SearchIndex.IntList foundForToken = new SearchIndex.IntList();
+    private final int[] gramCounts;
+
+    RankedSearch(List<Movie> movies) {
+        this.movies = movies;
+        norms = new float[movies.size()];
+
+        Map<String, Postings> postingsByTerm = new HashMap<>();
+        Map<String, Integer> occurrences = new LinkedHashMap<>();
+        long totalLength = 0;
+        int documents = 0;
+        for (int position = 0; position < movies.size(); position++) {
+            Movie movie = movies.get(position);
+            if (movie == null) {
+                continue;
+            }
+            occurrences.clear();
+            int length = count(occurrences, movie.getTitle(), TITLE_WEIGHT)
+                    + count(occurrences, movie.getDescription(), 1)
+                    + count(occurrences, movie.getDirectors(), NAME_WEIGHT)
+                    + count(occurrences, movie.getWriters(), NAME_WEIGHT)
+                    + count(occurrences, movie.getMainCast(), NAME_WEIGHT);
+            for (Map.Entry<String, Integer> word : occurrences.entrySet()) {
+                postingsByTerm.computeIfAbsent(word.getKey(), w -> new Postings()).add(position, word.getValue());
+            }
+            norms[position] = length;
+            totalLength += length;
+            documents++;
+        }
+        float averageLength = documents == 0 ? 1 : Math.max(1, (float) totalLength / documents);
+        for (int position = 0; position < norms.length; position++) {
+            norms[position] = K1 * (1 - B + B * norms[position] / averageLength);
+        }
+
+        terms = postingsByTerm.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        postings = new int[terms.length][];
+        frequencies = new byte[terms.length][];
+        Map<String, SearchIndex.IntList> termsByGram = new HashMap<>();
+        for (int term = 0; term < terms.length; term++) {
+            Postings list = postingsByTerm.remove(terms[term]);
+            postings[term] = Arrays.copyOf(list.positions, list.size);
+            frequencies[term] = Arrays.copyOf(list.frequencies, list.size);
+            for (String gram : grams(terms[term])) {
+                termsByGram.computeIfAbsent(gram, g -> new SearchIndex.IntList()).add(term);
+            }
+        }
+        grams = new HashMap<>(termsByGram.size() * 2);
+        termsByGram.forEach((gram, termIds) -> grams.put(gram, termIds.toArray()));
+
+        maxImpacts = new float[terms.length];
+        impactOrders = new int[terms.length][];
+        for (int term = 0; term < terms.length; term++) {
+            for (int i = 0; i < postings[term].length; i++) {
+                maxImpacts[term] = Math.max(maxImpacts[term], impact(term, i));
+            }
+            if (postings[term].length > COMMON_POSTINGS) {
+                impactOrders[term] = impactOrder(term);
+            }
+        }
+
+        scores = new float[movies.size()];
+        tokenScores = new float[movies.size()];
+        gramCounts = new int[terms.length];
+    }
+
+    Movie movie(int position) {
+        return movies.get(position);
+    }
+
+    // positions of all movies search could return for the query, in ascending order
+    synchronized int[] matches(String query) {
+        String folded = SearchIndex.fold(query);
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(SearchIndex.tokenize(folded)));
+        if (tokens.isEmpty()) {
+            return new int[0];
+        }
+        boolean typing = Character.isLetterOrDigit(folded.charAt(folded.length() - 1));
+        long[] found = new long[(movies.size() + 63) >>> 6];
+        for (int i = 0; i < tokens.size(); i++) {
+            for (int term : expand(tokens.get(i), typing && i == tokens.size() - 1).keySet()) {
+                for (int position : postings[term]) {
+                    found[position >>> 6] |= 1L << position;
+                }
+            }
+        }
+        SearchIndex.IntList positions = new SearchIndex.IntList();
+        for (int word = 0; word < found.length; word++) {
+            for (long bits = found[word]; bits != 0; bits &= bits - 1) {
+                positions.add((word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        return positions.toArray();
+    }
+
+    // positions of the (at most) limit best movies for the query that pass the filter, best first
+    synchronized int[] search(String query, Predicate<Movie> filter, int limit) {
+        String folded = SearchIndex.fold(query);
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(SearchIndex.tokenize(folded)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        boolean typing = Character.isLetterOrDigit(folded.charAt(folded.length() - 1));
+
+        // the words each query word stands for with their weights, and the most it can add to a score
+        List<Map<Integer, Float>> expansions = new ArrayList<>();
+        float[] bounds = new float[tokens.size()];
+        boolean[] common = new boolean[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            Map<Integer, Float> words = expand(tokens.get(i), typing && i == tokens.size() - 1);
+            long postingCount = 0;
+            for (Map.Entry<Integer, Float> word : words.entrySet()) {
+                word.setValue(word.getValue() * idf(word.getKey()));
+                bounds[i] = Math.max(bounds[i], word.getValue() * maxImpacts[word.getKey()]);
+                postingCount += postings[word.getKey()].length;
+            }
+            expansions.add(words);
+            common[i] = postingCount > COMMON_POSTINGS;
+        }
+        Integer[] order = new Integer[tokens.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Float.compare(bounds[b], bounds[a])); // rarest first
+
+        // rare words walk their postings
+        float remaining = 0;
+        for (float bound : bounds) {
+            remaining += bound;
+        }
+        boolean lookUpOnly = false;
+        List<Map<Integer, Float>> commonWords = new ArrayList<>();
+        for (int token : order) {
+            if (common[token]) {
+                commonWords.add(expansions.get(token));
+                continue;
+            }
+            remaining -= bounds[token];
+            if (lookUpOnly) {
+                lookUp(expansions.get(token));
+                continue;
+            }
+            score(expansions.get(token));
+            if (remaining > 0) { // a movie not found so far scores at most remaining from now on
+                TopK best = best(filter, limit);
+                lookUpOnly = best.isFull() && best.minScore() > remaining;
+            }
+        }
+
+        // common words complete the scores of the movies found, other movies only come in by impact order
+        for (Map<Integer, Float> words : commonWords) {
+            lookUp(words);
+        }
+        if (!lookUpOnly && !commonWords.isEmpty()) {
+            walkByImpact(commonWords, filter, limit);
+        }
+
+        int[] result = best(filter, limit).sorted();
+        for (int i = 0; i < found.size(); i++) {
+            scores[found.get(i)] = 0;
+        }
+        found.clear();
+        return result;
+    }
+
+    // adds the best score of any of the words to every movie containing one
+    private void score(Map<Integer, Float> words) {
+        for (Map.Entry<Integer, Float> word : words.entrySet()) {
+            int term = word.getKey();
+            float weight = word.getValue();
+            int[] positions = postings[term];
+            for (int i = 0; i < positions.length; i++) {
+                int position = positions[i];
+                if (tokenScores[position] == 0) {
+                    foundForToken.add(position);
+                }
+                tokenScores[position] = Math.max(tokenScores[position], weight * impact(term, i));
+            }
+        }
+        for (int i = 0; i < foundForToken.size(); i++) {
+            int position = foundForToken.get(i);
+            if (scores[position] == 0) {
+                found.add(position);
+            }
+            scores[position] += tokenScores[position];
+            tokenScores[position] = 0;
+        }
+        foundForToken.clear();
+    }
+
+    // same scores as score, but only for the movies found already
+    private void lookUp(Map<Integer, Float> words) {
+        for (int i = 0; i < found.size(); i++) {
+            int position = found.get(i);
+            scores[position] += lookUp(words, position);
+        }
+    }
+
+    private float lookUp(Map<Integer, Float> words, int position) {
+        float best = 0;
+        for (Map.Entry<Integer, Float> word : words.entrySet()) {
+            int term = word.getKey();
+            int index = Arrays.binarySearch(postings[term], position);
+            if (index >= 0) {
+                best = Math.max(best, word.getValue() * impact(term, index));
+            }
+        }
+        return best;
+    }
+
+    // Threshold algorithm over the common words: their postings are read in descending order of what they add
+    // to a score, and every movie met is scored completely by looking it up in the postings of the others.
+    // Once the best movies so far are better than anything a movie not met yet could reach, the rest is skipped.
+    private void walkByImpact(List<Map<Integer, Float>> commonWords, Predicate<Movie> filter, int limit) {
+        TopK best = best(filter, limit);
+        List<ImpactCursor> cursors = new ArrayList<>();
+        for (Map<Integer, Float> words : commonWords) {
+            cursors.add(new ImpactCursor(words));
+        }
+        while (true) {
+            float threshold = 0;
+            int lastPosition = -1; // a movie not met yet that reaches the threshold comes after every head
+            for (ImpactCursor cursor : cursors) {
+                if (!cursor.isDone()) {
+                    threshold += cursor.headScore();
+                    lastPosition = Math.max(lastPosition, cursor.headPosition());
+                }
+            }
+            if (lastPosition < 0 || best.isFull() && !best.isWorstWorseThan(lastPosition, threshold)) {
+                return;
+            }
+            for (ImpactCursor cursor : cursors) {
+                if (cursor.isDone()) {
+                    continue;
+                }
+                int position = cursor.headPosition();
+                cursor.advance();
+                if (scores[position] != 0) {
+                    continue; // met before
+                }
+                float score = 0;
+                for (Map<Integer, Float> words : commonWords) {
+                    score += lookUp(words, position);
+                }
+                scores[position] = score;
+                found.add(position);
+                if (filter.test(movies.get(position))) {
+                    best.offer(position, score);
+                }
+            }
+        }
+    }
+
+    // what one occurrence count of the word adds to the movie's score, before the word's weight
+    private float impact(int term, int index) {
+        float frequency = frequencies[term][index] & 0xff;
+        return frequency * (K1 + 1) / (frequency + norms[postings[term][index]]);
+    }
+
+    // indexes into the postings of the word, by descending impact and ascending position
+    private int[] impactOrder(int term) {
+        if (impactOrders[term] != null) {
+            return impactOrders[term];
+        }
+        long[] keys = new long[postings[term].length];
+        for (int i = 0; i < keys.length; i++) { // positive floats order like their bits
+            keys[i] = ((long) (Integer.MAX_VALUE - Float.floatToIntBits(impact(term, i))) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    // the postings of the words a query word stands for, merged in descending order of what they add to a score
+    private final class ImpactCursor {
+        private final int[] terms;
+        private final float[] weights;
+        private final int[][] orders;
+        private final int[] next;
+        private int head = -1; // the word whose next posting adds most, -1 when all are read
+
+        ImpactCursor(Map<Integer, Float> words) {
+            terms = new int[words.size()];
+            weights = new float[words.size()];
+            orders = new int[words.size()][];
+            next = new int[words.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Float> word : words.entrySet()) {
+                terms[i] = word.getKey();
+                weights[i] = word.getValue();
+                orders[i] = impactOrder(word.getKey());
+                i++;
+            }
+            findHead();
+        }
+
+        boolean isDone() {
+            return head < 0;
+        }
+
+        float headScore() {
+            return score(head);
+        }
+
+        int headPosition() {
+            return position(head);
+        }
+
+        void advance() {
+            next[head]++;
+            findHead();
+        }
+
+        private float score(int word) {
+            return weights[word] * impact(terms[word], orders[word][next[word]]);
+        }
+
+        private int position(int word) {
+            return postings[terms[word]][orders[word][next[word]]];
+        }
+
+        private void findHead() {
+            head = -1;
+            for (int word = 0; word < terms.length; word++) {
+                if (next[word] < orders[word].length && (head < 0 || score(word) > score(head)
+                        || score(word) == score(head) && position(word) < position(head))) {
+                    head = word;
+                }
+            }
+        }
+    }
+
+    private TopK best(Predicate<Movie> filter, int limit) {
+        TopK best = new TopK(Math.min(limit, movies.size()));
+        for (int i = 0; i < found.size(); i++) {
+            int position = found.get(i);
+            if (filter.test(movies.get(position))) {
+                best.offer(position, scores[position]);
+            }
+        }
+        return best;
+    }
+
+    // vocabulary words the token stands for, with the weight of a match
+    private Map<Integer, Float> expand(String token, boolean prefix) {
+        Map<Integer, Float> words = new HashMap<>();
+        int exact = Arrays.binarySearch(terms, token);
+        if (exact >= 0) {
+            words.put(exact, 1f);
+        }
+        if (prefix) {
+            addPrefixMatches(words, token, exact >= 0 ? exact + 1 : -exact - 1);
+        }
+        int maxDistance = token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+        if (maxDistance > 0 && token.chars().noneMatch(Character::isDigit)) { // a number one digit off is another number
+            addSimilar(words, token, maxDistance);
+        }
+        return words;
+    }
+
+    // the most frequent words starting with the token
+    private void addPrefixMatches(Map<Integer, Float> words, String token, int from) {
+        TopK frequent = new TopK(MAX_PREFIX_TERMS);
+        for (int term = from; term < terms.length && terms[term].startsWith(token); term++) {
+            frequent.offer(term, postings[term].length);
+        }
+        for (int term : frequent.sorted()) {
+            words.merge(term, PREFIX_WEIGHT, Math::max);
+        }
+    }
+
+    // words within maxDistance edits: they share at least all but 4 trigrams per edit (a swap touches 4)
+    private void addSimilar(Map<Integer, Float> words, String token, int maxDistance) {
+        Set<String> tokenGrams = grams(token);
+        SearchIndex.IntList candidates = new SearchIndex.IntList();
+        for (String gram : tokenGrams) {
+            int[] termIds = grams.get(gram);
+            if (termIds == null) {
+                continue;
+            }
+            for (int term : termIds) {
+                if (gramCounts[term]++ == 0) {
+                    candidates.add(term);
+                }
+            }
+        }
+        int needed = Math.max(1, tokenGrams.size() - 4 * maxDistance);
+        for (int i = 0; i < candidates.size(); i++) {
+            int term = candidates.get(i);
+            if (gramCounts[term] >= needed && Math.abs(terms[term].length() - token.length()) <= maxDistance) {
+                int distance = distance(token, terms[term], maxDistance);
+                if (distance > 0 && distance <= maxDistance) {
+                    words.merge(term, 1f / (1 + distance), Math::max);
+                }
+            }
+            gramCounts[term] = 0;
+        }
+    }
+
+    private float idf(int term) {
+        float documents = postings[term].length;
+        return (float) Math.log(1 + (movies.size() - documents + 0.5) / (documents + 0.5));
+    }
+
+    // Damerau-Levenshtein distance (optimal string alignment), anything above max is reported as max + 1
+    static int distance(String a, String b, int max) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] rotated = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = rotated;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    // words of the text with the given weight added per occurrence, returns the weighted number of words
+    private static int count(Map<String, Integer> occurrences, String text, int weight) {
+        if (text == null) {
+            return 0;
+        }
+        List<String> words = SearchIndex.tokenize(SearchIndex.fold(text));
+        for (String word : words) {
+            occurrences.merge(word, weight, Integer::sum);
+        }
+        return words.size() * weight;
+    }
+
+    private static int count(Map<String, Integer> occurrences, List<String> names, int weight) {
+        int length = 0;
+        if (names != null) {
+            for (int i = 0; i < names.size(); i++) {
+                length += count(occurrences, names.get(i), weight);
+            }
+        }
+        return length;
+    }
+
+    // "$" marks the start and end of the word, so a word of n letters has n trigrams
+    private static Set<String> grams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            result.add(padded.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    // positions and weighted frequencies of one word while building
+    private static final class Postings {
+        private int[] positions = new int[2];
+        private byte[] frequencies = new byte[2];
+        private int size;
+
+        void add(int position, int frequency) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            positions[size] = position;
+            frequencies[size] = (byte) Math.min(255, frequency);
+            size++;
+        }
+    }
+
+    // the capacity best values seen, in a min-heap; equal scores prefer the lower value (catalog order)
+    private static final class TopK {
+        private final int[] values;
+        private final float[] scores;
+        private int size;
+
+        TopK(int capacity) {
+            values = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        void offer(int value, float score) {
+            if (size < values.length) {
+                values[size] = value;
+                scores[size] = score;
+                up(size++);
+            } else if (worse(values[0], scores[0], value, score)) {
+                values[0] = value;
+                scores[0] = score;
+                down(0);
+            }
+        }
+
+        boolean isFull() {
+            return size == values.length;
+        }
+
+        // whether the worst value kept would lose against the given one
+        boolean isWorstWorseThan(int value, float score) {
+            return worse(values[0], scores[0], value, score);
+        }
+
+        float minScore() {
+            return scores[0];
+        }
+
+        // best first
+        int[] sorted() {
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = values[0];
+                size--;
+                values[0] = values[size];
+                scores[0] = scores[size];
+                down(0);
+            }
+            return result;
+        }
+
+        private static boolean worse(int value, float score, int otherValue, float otherScore) {
+            return score < otherScore || score == otherScore && value > otherValue;
+        }
+
+        private void up(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!worse(values[index], scores[index], values[parent], scores[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void down(int index) {
+            while (true) {
+                int worst = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (worse(values[child], scores[child], values[worst], scores[worst])) {
+                        worst = child;
+                    }
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
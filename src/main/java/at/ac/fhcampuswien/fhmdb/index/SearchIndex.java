@@ -0,0 +1,372 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Inverted index over title and description of a movie list.
+// Every word is case folded and mapped to the sorted positions of the movies containing it.
+// Substring queries are answered through a trigram index over the (small) vocabulary, shorter query words
+// through an index of the one and two letter pieces of every word, so a search touches the matching words
+// and movies instead of the whole catalog. The postings of the matching words are merged in one pass.
+// A position can be indexed again after its movie was replaced (index): words that are new to the movie are
+// added, words it lost stay behind. That is safe because every candidate is checked against the movie text,
+// and a null movie (removed from the catalog) never matches.
+public class SearchIndex {
+    private static final int GRAM = 3;
+
+    private final List<Movie> movies;
+    private String[] terms;                 // vocabulary, sorted up to the first term added by index
+    private int termCount;
+    private IntList[] postings;             // postings[term] = sorted movie positions
+    private final Map<String, int[]> grams; // trigram, bigram or single letter -> sorted term ids containing it
+    private Map<String, Integer> termIds;   // term -> id, only built once a position is indexed again
+
+    public SearchIndex(List<Movie> movies) {
+        this.movies = movies;
+
+        Map<String, IntList> postingsByTerm = new HashMap<>();
+        for (int position = 0; position < movies.size(); position++) {
+            for (String word : words(movies.get(position))) {
+                postingsByTerm.computeIfAbsent(word, w -> new IntList()).add(position);
+            }
+        }
+
+        terms = postingsByTerm.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        termCount = terms.length;
+        postings = new IntList[terms.length];
+        Map<String, IntList> termsByGram = new HashMap<>();
+        for (int termId = 0; termId < terms.length; termId++) {
+            String term = terms[termId];
+            postings[termId] = postingsByTerm.get(term).trim();
+            for (String gram : allGrams(term)) {
+                termsByGram.computeIfAbsent(gram, g -> new IntList()).add(termId);
+            }
+        }
+
+        grams = new HashMap<>(termsByGram.size() * 2);
+        termsByGram.forEach((gram, termIds) -> grams.put(gram, termIds.toArray()));
+    }
+
+    // all movies whose title or description contains the query (case insensitive), in catalog order
+    public List<Movie> search(String query) {
+        int[] positions = searchPositions(query);
+        if (positions == null) {
+            return movies;
+        }
+        List<Movie> result = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            result.add(movies.get(position));
+        }
+        return result;
+    }
+
+    // sorted catalog positions of the matching movies, null if the query does not restrict anything
+    public int[] searchPositions(String query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        String folded = fold(query);
+
+        int[] candidates = null;
+        for (String token : tokenize(folded)) {
+            int[] docs = moviesWithTermContaining(token);
+            candidates = candidates == null ? docs : intersect(candidates, docs);
+            if (candidates.length == 0) {
+                return candidates;
+            }
+        }
+
+        if (candidates == null) { // query without any letters or digits, nothing to look up
+            return Parallel.filterRange(movies.size(), position -> matches(movies.get(position), folded));
+        }
+
+        // words only narrow down the candidates, the whole query still has to appear as written
+        return Parallel.filter(candidates, position -> matches(movies.get(position), folded));
+    }
+
+    // positions out of base that match the query, for a query extending the one base was computed for:
+    // a movie containing the longer query contains the shorter one as well, so no other movie can match
+    int[] refinePositions(int[] base, String query) {
+        String folded = fold(query);
+        return Parallel.filter(base, position -> matches(movies.get(position), folded));
+    }
+
+    // adds the words of the movie now at position, which is either new or replaced the movie indexed there before
+    void index(int position) {
+        Movie movie = movies.get(position);
+        if (movie == null) {
+            return;
+        }
+        if (termIds == null) {
+            termIds = new HashMap<>(termCount * 2);
+            for (int termId = 0; termId < termCount; termId++) {
+                termIds.put(terms[termId], termId);
+            }
+        }
+        for (String word : words(movie)) {
+            Integer termId = termIds.get(word);
+            if (termId == null) {
+                termId = addTerm(word);
+            }
+            postings[termId].insertSorted(position);
+        }
+    }
+
+    // new terms get the next id, so the term ids of every trigram stay sorted
+    private int addTerm(String term) {
+        if (termCount == terms.length) {
+            terms = Arrays.copyOf(terms, Math.max(16, termCount * 2));
+            postings = Arrays.copyOf(postings, terms.length);
+        }
+        int termId = termCount++;
+        terms[termId] = term;
+        postings[termId] = new IntList();
+        termIds.put(term, termId);
+        for (String gram : allGrams(term)) {
+            int[] termIdsWithGram = grams.get(gram);
+            int[] extended = termIdsWithGram == null ? new int[1] : Arrays.copyOf(termIdsWithGram, termIdsWithGram.length + 1);
+            extended[extended.length - 1] = termId;
+            grams.put(gram, extended);
+        }
+        return termId;
+    }
+
+    private int[] moviesWithTermContaining(String token) {
+        int[] termIdsContaining = termsContaining(token);
+        IntList[] lists = new IntList[termIdsContaining.length];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings[termIdsContaining[i]];
+        }
+        return union(lists);
+    }
+
+    private int[] termsContaining(String token) {
+        if (token.length() < GRAM) { // the words containing a piece this short are indexed as they are
+            int[] withToken = grams.get(token);
+            return withToken == null ? new int[0] : withToken;
+        }
+
+        IntList termIds = new IntList();
+        int[] candidates = null;
+        for (String gram : grams(token)) {
+            int[] withGram = grams.get(gram);
+            if (withGram == null) {
+                return new int[0];
+            }
+            candidates = candidates == null ? withGram : intersect(candidates, withGram);
+        }
+        for (int termId : candidates) {
+            if (terms[termId].contains(token)) {
+                termIds.add(termId);
+            }
+        }
+        return termIds.toArray();
+    }
+
+    private static Set<String> words(Movie movie) {
+        Set<String> words = new LinkedHashSet<>();
+        words.addAll(tokenize(fold(movie.getTitle())));
+        words.addAll(tokenize(fold(movie.getDescription())));
+        return words;
+    }
+
+    private static boolean matches(Movie movie, String foldedQuery) {
+        return movie != null && (containsFolded(movie.getTitle(), foldedQuery) || containsFolded(movie.getDescription(), foldedQuery));
+    }
+
+    // case insensitive contains without allocating a lower case copy of the text
+    public static boolean containsFolded(String text, String foldedQuery) {
+        if (text == null) {
+            return false;
+        }
+        int last = text.length() - foldedQuery.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, foldedQuery, 0, foldedQuery.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static String fold(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    // the words (runs of letters and digits) of a folded text, in order
+    public static List<String> tokenize(String folded) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> grams(String term) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            result.add(term.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    // the trigrams of a word and every shorter piece of it, which is all a query word can be looked up by
+    private static Set<String> allGrams(String term) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int length = 1; length <= GRAM; length++) {
+            for (int i = 0; i + length <= term.length(); i++) {
+                result.add(term.substring(i, i + length));
+            }
+        }
+        return result;
+    }
+
+    // Sorted, distinct union of sorted lists in one pass (k-way merge): a min-heap holds the lists by their
+    // next value, so the cost grows with the values read times log of the number of lists.
+    static int[] union(IntList[] lists) {
+        if (lists.length == 1) {
+            return lists[0].toArray();
+        }
+        int[] heap = new int[lists.length]; // indexes into lists
+        int[] next = new int[lists.length];
+        int size = 0;
+        int total = 0;
+        for (int list = 0; list < lists.length; list++) {
+            if (lists[list].size() > 0) {
+                heap[size++] = list;
+                total += lists[list].size();
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, size, i, lists, next);
+        }
+        int[] result = new int[total];
+        int count = 0;
+        while (size > 0) {
+            int list = heap[0];
+            int value = lists[list].get(next[list]++);
+            if (count == 0 || result[count - 1] != value) {
+                result[count++] = value;
+            }
+            if (next[list] == lists[list].size()) {
+                heap[0] = heap[--size];
+            }
+            siftDown(heap, size, 0, lists, next);
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static void siftDown(int[] heap, int size, int index, IntList[] lists, int[] next) {
+        while (true) {
+            int smallest = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                if (lists[heap[child]].get(next[heap[child]]) < lists[heap[smallest]].get(next[heap[smallest]])) {
+                    smallest = child;
+                }
+            }
+            if (smallest == index) {
+                return;
+            }
+            int swapped = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = swapped;
+            index = smallest;
+        }
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // growable int array, avoids boxing millions of postings
+    static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        // keeps the values sorted and distinct, for a sorted list
+        void insertSorted(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, size * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        // drops the spare capacity
+        IntList trim() {
+            if (values.length != size) {
+                values = toArray();
+            }
+            return this;
+        }
+
+        int[] sortedDistinct() {
+            int[] sorted = toArray();
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, distinct);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.SortField;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Sort keys computed once per catalog. Titles are ranked with a Collator of the default locale, so accented
+// and lower case titles sort where a reader expects them; the numeric fields are their own key.
+// Sorting packs key and position into one long, so no comparator runs per comparison.
+// The ascending order of the whole catalog is kept per field until the catalog is replaced.
+public class SortKeys {
+    private List<Movie> catalog;
+    private Map<String, Integer> titleRanks; // title -> rank in collation order, built on first title sort
+    private List<CollationKey> sortedTitles; // the ranked titles in collation order
+    private final Map<SortField, int[]> catalogOrders = new EnumMap<>(SortField.class);
+
+    public SortKeys(List<Movie> catalog) {
+        this.catalog = catalog;
+    }
+
+    // positions of the movies in ascending order of field, movies with equal keys keep their order.
+    // the array for the catalog itself is cached and must not be modified
+    public synchronized int[] order(List<Movie> movies, SortField field) {
+        if (movies == catalog) {
+            return catalogOrders.computeIfAbsent(field, f -> computeOrder(catalog, f));
+        }
+        return computeOrder(movies, field);
+    }
+
+    // the catalog changed, upserted are its new and changed movies. The cached orders are dropped, but titles
+    // that were ranked already keep their collation keys: only new titles are collated and merged in
+    synchronized void update(List<Movie> catalog, List<Movie> upserted) {
+        this.catalog = catalog;
+        catalogOrders.clear();
+        if (titleRanks == null) {
+            return;
+        }
+        Collator collator = Collator.getInstance();
+        List<CollationKey> merged = new ArrayList<>(sortedTitles);
+        Set<String> added = new HashSet<>();
+        for (Movie movie : upserted) {
+            String title = title(movie);
+            if (!titleRanks.containsKey(title) && added.add(title)) {
+                CollationKey key = collator.getCollationKey(title);
+                int index = Collections.binarySearch(merged, key);
+                merged.add(index < 0 ? -index - 1 : index, key);
+            }
+        }
+        if (!added.isEmpty()) {
+            sortedTitles = merged;
+            titleRanks = ranks(merged);
+        }
+    }
+
+    private int[] computeOrder(List<Movie> movies, SortField field) {
+        int[] keys = keys(movies, field);
+        long[] packed = new long[keys.length];
+        for (int position = 0; position < keys.length; position++) {
+            packed[position] = ((long) keys[position] << 32) | position;
+        }
+        Arrays.sort(packed);
+        int[] order = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
+    }
+
+    private int[] keys(List<Movie> movies, SortField field) {
+        int[] keys = new int[movies.size()];
+        switch (field) {
+            case TITLE -> {
+                Map<String, Integer> catalogRanks = titleRanks();
+                // movies that are not in the catalog have no rank yet, then these titles are ranked on their own
+                Map<String, Integer> ranks = movies.stream().allMatch(movie -> catalogRanks.containsKey(title(movie)))
+                        ? catalogRanks : rankTitles(movies);
+                for (int position = 0; position < keys.length; position++) {
+                    keys[position] = ranks.get(title(movies.get(position)));
+                }
+            }
+            case RELEASE_YEAR -> {
+                for (int position = 0; position < keys.length; position++) {
+                    keys[position] = movies.get(position).getReleaseYear();
+                }
+            }
+            case LENGTH_IN_MINUTES -> {
+                for (int position = 0; position < keys.length; position++) {
+                    keys[position] = movies.get(position).getLengthInMinutes();
+                }
+            }
+            case RATING -> {
+                // ratings are ranked among the few distinct values
+                double[] ratings = new double[keys.length];
+                for (int position = 0; position < keys.length; position++) {
+                    ratings[position] = movies.get(position).getRating();
+                }
+                double[] distinct = Arrays.stream(ratings).sorted().distinct().toArray();
+                for (int position = 0; position < keys.length; position++) {
+                    keys[position] = Arrays.binarySearch(distinct, ratings[position]);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private Map<String, Integer> titleRanks() {
+        if (titleRanks == null) {
+            sortedTitles = sortTitles(catalog);
+            titleRanks = ranks(sortedTitles);
+        }
+        return titleRanks;
+    }
+
+    private static Map<String, Integer> rankTitles(List<Movie> movies) {
+        return ranks(sortTitles(movies));
+    }
+
+    private static List<CollationKey> sortTitles(List<Movie> movies) {
+        Collator collator = Collator.getInstance();
+        Map<String, CollationKey> keys = new HashMap<>();
+        for (Movie movie : movies) {
+            keys.computeIfAbsent(title(movie), collator::getCollationKey);
+        }
+        return Parallel.sorted(List.copyOf(keys.values()), CollationKey::compareTo);
+    }
+
+    // titles the collator considers equal share a rank
+    private static Map<String, Integer> ranks(List<CollationKey> sorted) {
+        Map<String, Integer> ranks = new HashMap<>(sorted.size() * 2);
+        int rank = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i > 0 && sorted.get(i).compareTo(sorted.get(i - 1)) != 0) {
+                rank++;
+            }
+            ranks.put(sorted.get(i).getSourceString(), rank);
+        }
+        return ranks;
+    }
+
+    private static String title(Movie movie) {
+        return movie.getTitle() != null ? movie.getTitle() : "";
+    }
+}
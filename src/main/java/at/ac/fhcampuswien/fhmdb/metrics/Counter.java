@@ -0,0 +1,29 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// a count of events, cheap to increment from many threads
+public class Counter {
+    private final boolean recording;
+    private final LongAdder count = new LongAdder();
+
+    Counter(boolean recording) {
+        this.recording = recording;
+    }
+
+    public void increment() {
+        if (recording) {
+            count.increment();
+        }
+    }
+
+    public void add(long amount) {
+        if (recording) {
+            count.add(amount);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
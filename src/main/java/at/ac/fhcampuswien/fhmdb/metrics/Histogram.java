@@ -0,0 +1,92 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Distribution of non-negative long values in log-linear buckets, like an HDR histogram: values below 32
+// are counted exactly, above that every power of two is split into 32 equal buckets, so a reported
+// percentile is at most 1/32 (about 3%) above the real value. Recording is lock-free and allocation-free.
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public Histogram() {
+        this(true);
+    }
+
+    // a histogram that does not record takes no memory for its buckets
+    Histogram(boolean recording) {
+        counts = new AtomicLongArray(recording ? (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS : 0);
+    }
+
+    public void record(long value) {
+        if (counts.length() == 0) {
+            return;
+        }
+        long clamped = Math.max(0, value);
+        counts.incrementAndGet(bucket(clamped));
+        count.incrementAndGet();
+        sum.addAndGet(clamped);
+        max.accumulateAndGet(clamped, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    // the smallest recorded value that is at least as large as the given share (0 to 1) of all values,
+    // rounded up to the end of its bucket
+    public long getPercentile(double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile * count.get()));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBound(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // counts per power of two, index i holds the values from 2^i to 2^(i+1) - 1 (index 0 also holds 0)
+    public long[] getPowerOfTwoCounts() {
+        long[] rows = new long[64];
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            rows[63 - Long.numberOfLeadingZeros(Math.max(1, upperBound(bucket)))] += counts.get(bucket);
+        }
+        return rows;
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int power = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (power - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (power - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // the largest value that falls into the bucket
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1; // power - SUB_BUCKET_BITS
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,148 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Timers, counters and histograms of the app, registered by name. Off unless started with -Dfhmdb.metrics=true:
+// the switch is a constant, so with metrics off the JIT removes the measuring code and nothing is recorded.
+// With metrics on, a snapshot is exported every -Dfhmdb.metrics.exportSeconds (default 60, 0 = never),
+// as JSON to -Dfhmdb.metrics.file or else as a summary on System.err like the other diagnostics.
+public final class Metrics {
+    private static final boolean ENABLED = Boolean.getBoolean("fhmdb.metrics");
+
+    private static final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+    static {
+        long exportSeconds = Long.getLong("fhmdb.metrics.exportSeconds", 60);
+        if (ENABLED && exportSeconds > 0) {
+            ScheduledExecutorService exporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-export");
+                thread.setDaemon(true);
+                return thread;
+            });
+            String file = System.getProperty("fhmdb.metrics.file");
+            exporter.scheduleAtFixedRate(() -> export(file), exportSeconds, exportSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // the start time for Timer.stop, 0 if metrics are off
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer(ENABLED));
+    }
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter(ENABLED));
+    }
+
+    // values that are not durations, e.g. sizes in bytes; the unit is part of the name
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram(ENABLED));
+    }
+
+    // all metrics as one JSON object, durations in milliseconds
+    public static String toJson() {
+        StringWriter json = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(json)) {
+            writer.beginObject();
+            writer.name("timestamp").value(System.currentTimeMillis());
+            writer.name("timers").beginObject();
+            for (Map.Entry<String, Timer> timer : timers.entrySet()) {
+                writer.name(timer.getKey());
+                writeHistogram(writer, timer.getValue().getHistogram(), 1e6);
+            }
+            writer.endObject();
+            writer.name("counters").beginObject();
+            for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+                writer.name(counter.getKey()).value(counter.getValue().getCount());
+            }
+            writer.endObject();
+            writer.name("histograms").beginObject();
+            for (Map.Entry<String, Histogram> histogram : histograms.entrySet()) {
+                writer.name(histogram.getKey());
+                writeHistogram(writer, histogram.getValue(), 1);
+            }
+            writer.endObject();
+            writer.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringWriter does not fail
+        }
+        return json.toString();
+    }
+
+    private static void writeHistogram(JsonWriter writer, Histogram histogram, double divisor) throws IOException {
+        writer.beginObject();
+        writer.name("count").value(histogram.getCount());
+        writer.name("mean").value(histogram.getMean() / divisor);
+        writer.name("p50").value(histogram.getPercentile(0.5) / divisor);
+        writer.name("p90").value(histogram.getPercentile(0.9) / divisor);
+        writer.name("p99").value(histogram.getPercentile(0.99) / divisor);
+        writer.name("max").value(histogram.getMax() / divisor);
+        writer.endObject();
+    }
+
+    // one line per metric that was used, for the log and the debug overlay
+    public static String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, Timer> timer : timers.entrySet()) {
+            Histogram histogram = timer.getValue().getHistogram();
+            if (histogram.getCount() > 0) {
+                summary.append(String.format("%-22s n=%-7d p50=%8.2f ms  p99=%8.2f ms  max=%8.2f ms%n", timer.getKey(),
+                        histogram.getCount(), histogram.getPercentile(0.5) / 1e6, histogram.getPercentile(0.99) / 1e6,
+                        histogram.getMax() / 1e6));
+            }
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getCount() > 0) {
+                summary.append(String.format("%-22s n=%-7d p50=%11d  p99=%11d  max=%11d%n", entry.getKey(),
+                        histogram.getCount(), histogram.getPercentile(0.5), histogram.getPercentile(0.99), histogram.getMax()));
+            }
+        }
+        for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+            if (counter.getValue().getCount() > 0) {
+                summary.append(String.format("%-22s %d%n", counter.getKey(), counter.getValue().getCount()));
+            }
+        }
+        return summary.toString();
+    }
+
+    private static void export(String file) {
+        if (file == null) {
+            System.err.print("Metrics:\n" + summary());
+            return;
+        }
+        try {
+            // written next to the file and moved over it, so a reader never sees half a snapshot
+            Path target = Path.of(file);
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.writeString(temporary, toJson());
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Metrics could not be written: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+// Durations of one operation in nanoseconds. Used as
+//     long start = Metrics.start();
+//     ...
+//     timer.stop(start);
+// With metrics turned off start() is 0 and stop() returns at once, so not even the clock is read.
+public class Timer {
+    private final Histogram histogram;
+
+    Timer(boolean recording) {
+        histogram = new Histogram(recording);
+    }
+
+    public void stop(long start) {
+        if (start != 0) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,93 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Read-only catalog stored column by column in arrays instead of one object per movie.
+// Numeric fields are primitive arrays that can be scanned directly; get(i) materializes a Movie
+// on demand, so the returned instances are not identical between calls (compare by getId()).
+public class ColumnarMovies extends AbstractList<Movie> implements RandomAccess {
+    private final long[] idHigh;
+    private final long[] idLow;
+    private final String[] idText;
+    private final String[] titles;
+    private final String[] descriptions;
+    private final int[] genreMasks;
+    private final int[] releaseYears;
+    private final String[] imgUrls;
+    private final int[] lengthsInMinutes;
+    private final double[] ratings;
+    private final List<String>[] directors; // the immutable, interned lists of the original movies
+    private final List<String>[] writers;
+    private final List<String>[] mainCast;
+
+    public ColumnarMovies(List<Movie> movies) {
+        int size = movies.size();
+        idHigh = new long[size];
+        idLow = new long[size];
+        idText = new String[size];
+        titles = new String[size];
+        descriptions = new String[size];
+        genreMasks = new int[size];
+        releaseYears = new int[size];
+        imgUrls = new String[size];
+        lengthsInMinutes = new int[size];
+        ratings = new double[size];
+        directors = newListArray(size);
+        writers = newListArray(size);
+        mainCast = newListArray(size);
+
+        for (int i = 0; i < size; i++) {
+            Movie movie = movies.get(i);
+            idHigh[i] = movie.getIdHigh();
+            idLow[i] = movie.getIdLow();
+            idText[i] = movie.getIdText();
+            titles[i] = movie.getTitle();
+            descriptions[i] = movie.getDescription();
+            genreMasks[i] = movie.getGenreMask();
+            releaseYears[i] = movie.getReleaseYear();
+            imgUrls[i] = movie.getImgUrl();
+            lengthsInMinutes[i] = movie.getLengthInMinutes();
+            ratings[i] = movie.getRating();
+            directors[i] = movie.getDirectors();
+            writers[i] = movie.getWriters();
+            mainCast[i] = movie.getMainCast();
+        }
+    }
+
+    @SuppressWarnings("unchecked") // an array of lists can only be created without the element type
+    private static List<String>[] newListArray(int size) {
+        return (List<String>[]) new List<?>[size];
+    }
+
+    @Override
+    public Movie get(int index) {
+        return new Movie(idHigh[index], idLow[index], idText[index], titles[index], descriptions[index],
+                genreMasks[index], releaseYears[index], imgUrls[index], lengthsInMinutes[index],
+                directors[index], writers[index], mainCast[index], ratings[index]);
+    }
+
+    @Override
+    public int size() {
+        return titles.length;
+    }
+
+    // the primitive columns, shared and not copied: do not modify
+
+    public int[] getGenreMasks() {
+        return genreMasks;
+    }
+
+    public int[] getReleaseYears() {
+        return releaseYears;
+    }
+
+    public int[] getLengthsInMinutes() {
+        return lengthsInMinutes;
+    }
+
+    public double[] getRatings() {
+        return ratings;
+    }
+}
@@ -0,0 +1,50 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// conversion between genre lists and the bitmask stored in Movie
+public final class Genres {
+    private static final Genre[] ALL = Genre.values();
+
+    // one shared, immutable list per genre combination, created on first use
+    private static final Map<Integer, List<Genre>> LISTS = new ConcurrentHashMap<>();
+
+    private Genres() {
+    }
+
+    public static int bit(Genre genre) {
+        return 1 << genre.ordinal();
+    }
+
+    // unknown (null) genres are dropped
+    public static int toMask(List<Genre> genres) {
+        int mask = 0;
+        if (genres != null) {
+            for (Genre genre : genres) {
+                if (genre != null) {
+                    mask |= bit(genre);
+                }
+            }
+        }
+        return mask;
+    }
+
+    public static List<Genre> fromMask(int mask) {
+        List<Genre> list = LISTS.get(mask);
+        return list != null ? list : LISTS.computeIfAbsent(mask, Genres::createList);
+    }
+
+    private static List<Genre> createList(int mask) {
+        List<Genre> genres = new ArrayList<>(Integer.bitCount(mask));
+        for (Genre genre : ALL) {
+            if ((mask & bit(genre)) != 0) {
+                genres.add(genre);
+            }
+        }
+        return Collections.unmodifiableList(genres);
+    }
+}
@@ -1,46 +1,70 @@
 package at.ac.fhcampuswien.fhmdb.models;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
+// Kept small because catalogs can hold millions of movies: genres are a bitmask over the Genre ordinals,
+// people names are interned in NamePool and stored in exact-size immutable lists, and UUID ids are kept
+// as two longs until getId is first called. The getters return the values the movie was created with,
+// except getGenres: genres are kept as a set, so they come in Genre order without duplicates or unknown (null)
+// entries, and toString and the genre label of a movie cell show them in that order as well.
+@JsonAdapter(MovieTypeAdapter.class)
 public class Movie {
-    private String id;
-    private String title;
-    private String description;
-    private List<Genre> genres;
-    private int releaseYear;
-    private String imgUrl;
-    private int lengthInMinutes;
-    private List<String> directors;
-    private List<String> writers;
-    private List<String> mainCast;
-    private double rating;
+    private final long idHigh; // id as UUID bits, if uuid is set
+    private final long idLow;
+    private final boolean uuid;
+    private String idText; // ids that are not in canonical UUID form are kept as they are, UUIDs once getId was called
+    private final String title;
+    private final String description;
+    private final int genreMask; // bit i = Genre.values()[i]
+    private final int releaseYear;
+    private final String imgUrl;
+    private final int lengthInMinutes;
+    private final List<String> directors;
+    private final List<String> writers;
+    private final List<String> mainCast;
+    private final double rating;
 
 
     public Movie(String title, String description, List<Genre> genres) {
-        this.id = UUID.randomUUID().toString();
-        this.title = title;
-        this.description = description;
-        this.genres = genres;
-        this.releaseYear = 0;
-        this.imgUrl = "";
-        this.lengthInMinutes = 0;
-        this.rating = 0;
+        this(null, title, description, genres, 0, "", 0, null, null, null, 0);
     }
 
     public Movie(String id, String title, String description, List<Genre> genres, int releaseYear,
                  String imgUrl, int lengthInMinutes, List<String> directors, List<String> writers,
                  List<String> mainCast, double rating) {
-        if(id == null) {
-            this.id = UUID.randomUUID().toString();
-        } else {
-            this.id = id;
-        }
+        this(id, title, description, Genres.toMask(genres), releaseYear, imgUrl, lengthInMinutes,
+                NamePool.internAll(directors), NamePool.internAll(writers), NamePool.internAll(mainCast), rating);
+    }
+
+    // for callers that already hold a genre mask and interned name lists
+    Movie(String id, String title, String description, int genreMask, int releaseYear, String imgUrl,
+          int lengthInMinutes, List<String> directors, List<String> writers, List<String> mainCast, double rating) {
+        this(id == null ? UUID.randomUUID() : parseCanonicalUuid(id), id, title, description, genreMask, releaseYear,
+                imgUrl, lengthInMinutes, directors, writers, mainCast, rating);
+    }
+
+    private Movie(UUID uuid, String id, String title, String description, int genreMask, int releaseYear, String imgUrl,
+                  int lengthInMinutes, List<String> directors, List<String> writers, List<String> mainCast, double rating) {
+        this(uuid != null ? uuid.getMostSignificantBits() : 0, uuid != null ? uuid.getLeastSignificantBits() : 0,
+                uuid != null ? null : id, title, description, genreMask, releaseYear, imgUrl, lengthInMinutes,
+                directors, writers, mainCast, rating);
+    }
+
+    Movie(long idHigh, long idLow, String idText, String title, String description, int genreMask, int releaseYear,
+          String imgUrl, int lengthInMinutes, List<String> directors, List<String> writers, List<String> mainCast,
+          double rating) {
+        this.idHigh = idHigh;
+        this.idLow = idLow;
+        this.uuid = idText == null;
+        this.idText = idText;
         this.title = title;
         this.description = description;
-        this.genres = genres;
+        this.genreMask = genreMask;
         this.releaseYear = releaseYear;
         this.imgUrl = imgUrl;
         this.lengthInMinutes = lengthInMinutes;
@@ -50,13 +74,25 @@ public class Movie {
         this.rating = rating;
     }
 
+    private static UUID parseCanonicalUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null; // only if getId() gives back exactly the same text
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     @Override
     public String toString() {
         return "Movie{" +
-                "id='" + id + '\'' +
+                "id='" + getId() + '\'' +
                 ", title='" + title + '\'' +
                 ", description='" + description + '\'' +
-                ", genres=" + genres +
+                ", genres=" + getGenres() +
                 ", releaseYear=" + releaseYear +
                 ", imgUrl='" + imgUrl + '\'' +
                 ", lengthInMinutes=" + lengthInMinutes +
@@ -69,7 +105,25 @@ public class Movie {
 
     // getter
 
+    long getIdHigh() {
+        return idHigh;
+    }
+
+    long getIdLow() {
+        return idLow;
+    }
+
+    String getIdText() {
+        return uuid ? null : idText;
+    }
+
+    // the text of a UUID is made once, it is the key of every map over movies
     public String getId() {
+        String id = idText;
+        if (id == null) {
+            id = new UUID(idHigh, idLow).toString();
+            idText = id; // racing threads make equal strings, either one will do
+        }
         return id;
     }
 
@@ -81,8 +135,17 @@ public class Movie {
         return description;
     }
 
+    // in Genre order and not in the order given, the list is shared by all movies with the same genres
     public List<Genre> getGenres() {
-        return genres;
+        return Genres.fromMask(genreMask);
+    }
+
+    public int getGenreMask() {
+        return genreMask;
+    }
+
+    public boolean hasGenre(Genre genre) {
+        return (genreMask & Genres.bit(genre)) != 0;
     }
 
     public int getReleaseYear() {
@@ -113,6 +176,47 @@ public class Movie {
         return rating;
     }
 
+    // 64 bit hash over every field but the id: two versions of a movie with the same id differ exactly when
+    // their hashes differ (barring a collision), so catalogs can be compared without comparing the movies
+    public long contentHash() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, title);
+        hash = mix(hash, description);
+        hash = mix(hash, genreMask);
+        hash = mix(hash, releaseYear);
+        hash = mix(hash, imgUrl);
+        hash = mix(hash, lengthInMinutes);
+        hash = mix(hash, directors);
+        hash = mix(hash, writers);
+        hash = mix(hash, mainCast);
+        return mix(hash, Double.doubleToLongBits(rating));
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x100000001b3L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static long mix(long hash, String text) {
+        if (text == null) {
+            return mix(hash, -1);
+        }
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash, text.length()); // the length separates fields, "ab" + "c" differs from "a" + "bc"
+    }
+
+    private static long mix(long hash, List<String> names) {
+        if (names == null) {
+            return mix(hash, -1);
+        }
+        for (int i = 0; i < names.size(); i++) { // the lists are random access, no iterator needed
+            hash = mix(hash, names.get(i));
+        }
+        return mix(hash, names.size());
+    }
+
 
     // Dummy-List from ex1
     public static List<Movie> initializeMovies(){
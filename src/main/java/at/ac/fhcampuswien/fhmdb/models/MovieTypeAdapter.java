@@ -0,0 +1,127 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads and writes a Movie in the JSON shape of the /movies endpoint. Needed because Movie
+// keeps its data in compact fields that do not match the JSON properties any more.
+public class MovieTypeAdapter extends TypeAdapter<Movie> {
+
+    @Override
+    public void write(JsonWriter out, Movie movie) throws IOException {
+        if (movie == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(movie.getId());
+        out.name("title").value(movie.getTitle());
+        out.name("description").value(movie.getDescription());
+        out.name("genres").beginArray();
+        for (Genre genre : movie.getGenres()) {
+            out.value(genre.name());
+        }
+        out.endArray();
+        out.name("releaseYear").value(movie.getReleaseYear());
+        out.name("imgUrl").value(movie.getImgUrl());
+        out.name("lengthInMinutes").value(movie.getLengthInMinutes());
+        writeNames(out, "directors", movie.getDirectors());
+        writeNames(out, "writers", movie.getWriters());
+        writeNames(out, "mainCast", movie.getMainCast());
+        out.name("rating").value(movie.getRating());
+        out.endObject();
+    }
+
+    @Override
+    public Movie read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String id = null, title = null, description = null, imgUrl = null;
+        int genreMask = 0, releaseYear = 0, lengthInMinutes = 0;
+        List<String> directors = null, writers = null, mainCast = null;
+        double rating = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id" -> id = in.nextString();
+                case "title" -> title = in.nextString();
+                case "description" -> description = in.nextString();
+                case "genres" -> genreMask = readGenres(in);
+                case "releaseYear" -> releaseYear = in.nextInt();
+                case "imgUrl" -> imgUrl = in.nextString();
+                case "lengthInMinutes" -> lengthInMinutes = in.nextInt();
+                case "directors" -> directors = readNames(in);
+                case "writers" -> writers = readNames(in);
+                case "mainCast" -> mainCast = readNames(in);
+                case "rating" -> rating = in.nextDouble();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new Movie(id, title, description, genreMask, releaseYear, imgUrl, lengthInMinutes,
+                directors, writers, mainCast, rating);
+    }
+
+    private static int readGenres(JsonReader in) throws IOException {
+        int mask = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            String name = in.nextString();
+            for (Genre genre : Genre.values()) {
+                if (genre.name().equals(name)) { // unknown genres are skipped like Gson does for enums
+                    mask |= Genres.bit(genre);
+                    break;
+                }
+            }
+        }
+        in.endArray();
+        return mask;
+    }
+
+    private static List<String> readNames(JsonReader in) throws IOException {
+        List<String> names = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                names.add(null);
+            } else {
+                names.add(in.nextString());
+            }
+        }
+        in.endArray();
+        return NamePool.internAll(names);
+    }
+
+    private static void writeNames(JsonWriter out, String name, List<String> names) throws IOException {
+        out.name(name);
+        if (names == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : names) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+}
@@ -0,0 +1,69 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.WeakHashMap;
+
+// Shared instances for people names. The same director or actor appears in many movies,
+// with the pool every name is kept in memory once no matter how often it was parsed.
+// Names are only held weakly: once no movie refers to a name any more, it leaves the pool.
+// The pool is split into stripes by hash with a lock each, so threads decoding movies rarely wait for each other.
+public final class NamePool {
+    private static final int STRIPES = 64; // a power of two
+    private static final Stripe[] POOL = new Stripe[STRIPES];
+
+    static {
+        Arrays.setAll(POOL, i -> new Stripe());
+    }
+
+    private NamePool() {
+    }
+
+    public static String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        int hash = name.hashCode();
+        return POOL[(hash ^ (hash >>> 16)) & (STRIPES - 1)].intern(name);
+    }
+
+    // exact-size immutable copy with pooled names, null stays null
+    public static List<String> internAll(List<String> names) {
+        if (names == null) {
+            return null;
+        }
+        String[] pooled = new String[names.size()];
+        for (int i = 0; i < pooled.length; i++) {
+            pooled[i] = intern(names.get(i));
+        }
+        return pooled.length == 0 ? List.of() : Collections.unmodifiableList(Arrays.asList(pooled));
+    }
+
+    public static int size() {
+        int size = 0;
+        for (Stripe stripe : POOL) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private static final class Stripe {
+        private final WeakHashMap<String, WeakReference<String>> names = new WeakHashMap<>();
+
+        synchronized String intern(String name) {
+            WeakReference<String> reference = names.get(name);
+            String pooled = reference != null ? reference.get() : null;
+            if (pooled == null) {
+                names.put(name, new WeakReference<>(name));
+                pooled = name;
+            }
+            return pooled;
+        }
+
+        synchronized int size() {
+            return names.size();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+// where filter clicks are answered
+public enum QueryMode {
+    REMOTE,   // every filter click sends a new request to the server
+    LOCAL,    // filters run against the catalog loaded at startup, the server is never asked again
+    SNAPSHOT  // like LOCAL, but the catalog is reloaded in the background once it is older than the max age
+}
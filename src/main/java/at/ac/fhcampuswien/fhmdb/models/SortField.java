@@ -0,0 +1,8 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+public enum SortField {
+    TITLE,
+    RELEASE_YEAR,
+    RATING,
+    LENGTH_IN_MINUTES
+}
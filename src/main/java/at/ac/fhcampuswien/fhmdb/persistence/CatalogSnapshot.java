@@ -0,0 +1,176 @@
+package at.ac.fhcampuswien.fhmdb.persistence;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Genres;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compact binary copy of the whole catalog, read in one go. The app keeps the catalog of the last run in
+// MovieStore, which reads only the first page on startup; this format stays for callers that need every movie.
+//
+// Layout (big endian):
+//   header:  int magic, int version, int movieCount, int stringCount
+//   strings: stringCount x (int byteLength, UTF-8 bytes), every distinct string stored once
+//   movies:  movieCount x (int id, int title, int description, int genreMask, int releaseYear,
+//            int imgUrl, int lengthInMinutes, double rating, 3 x (int size, size x int) for directors, writers and mainCast)
+// Strings are referenced by their index in the string table, -1 stands for null (also for lists).
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x464D4442; // "FMDB"
+    private static final int VERSION = 2;
+
+    public static void write(List<Movie> movies, Path file) throws IOException {
+        StringTable strings = new StringTable();
+        for (Movie movie : movies) {
+            strings.add(movie.getId());
+            strings.add(movie.getTitle());
+            strings.add(movie.getDescription());
+            strings.add(movie.getImgUrl());
+            strings.addAll(movie.getDirectors());
+            strings.addAll(movie.getWriters());
+            strings.addAll(movie.getMainCast());
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "catalog", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(movies.size());
+            out.writeInt(strings.values.size());
+            for (String value : strings.values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            for (Movie movie : movies) {
+                out.writeInt(strings.indexOf(movie.getId()));
+                out.writeInt(strings.indexOf(movie.getTitle()));
+                out.writeInt(strings.indexOf(movie.getDescription()));
+                out.writeInt(movie.getGenreMask());
+                out.writeInt(movie.getReleaseYear());
+                out.writeInt(strings.indexOf(movie.getImgUrl()));
+                out.writeInt(movie.getLengthInMinutes());
+                out.writeDouble(movie.getRating());
+                writeList(out, strings, movie.getDirectors());
+                writeList(out, strings, movie.getWriters());
+                writeList(out, strings, movie.getMainCast());
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // maps the file into memory instead of copying it through a stream
+    public static List<Movie> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported catalog snapshot version " + version);
+            }
+            int movieCount = buffer.getInt();
+            String[] strings = new String[buffer.getInt()];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                if (scratch.length < length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            List<Movie> movies = new ArrayList<>(movieCount);
+            for (int i = 0; i < movieCount; i++) {
+                String id = string(strings, buffer.getInt());
+                String title = string(strings, buffer.getInt());
+                String description = string(strings, buffer.getInt());
+                List<Genre> genres = Genres.fromMask(buffer.getInt());
+                int releaseYear = buffer.getInt();
+                String imgUrl = string(strings, buffer.getInt());
+                int lengthInMinutes = buffer.getInt();
+                double rating = buffer.getDouble();
+                List<String> directors = readList(buffer, strings);
+                List<String> writers = readList(buffer, strings);
+                List<String> mainCast = readList(buffer, strings);
+                movies.add(new Movie(id, title, description, genres, releaseYear, imgUrl,
+                        lengthInMinutes, directors, writers, mainCast, rating));
+            }
+            return movies;
+        } catch (RuntimeException e) { // truncated or corrupt file
+            throw new IOException("Corrupt catalog snapshot " + file, e);
+        }
+    }
+
+    private static void writeList(DataOutputStream out, StringTable strings, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeInt(strings.indexOf(value));
+        }
+    }
+
+    private static List<String> readList(MappedByteBuffer buffer, String[] strings) {
+        int size = buffer.getInt();
+        if (size < 0) {
+            return null;
+        }
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = string(strings, buffer.getInt());
+        }
+        return Arrays.asList(values);
+    }
+
+    private static String string(String[] strings, int index) {
+        return index < 0 ? null : strings[index];
+    }
+
+    // every distinct string gets one index, repeated names (directors, cast, ...) are stored once
+    private static class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        void add(String value) {
+            if (value != null && !indexes.containsKey(value)) {
+                indexes.put(value, values.size());
+                values.add(value);
+            }
+        }
+
+        void addAll(List<String> list) {
+            if (list != null) {
+                list.forEach(this::add);
+            }
+        }
+
+        int indexOf(String value) {
+            return value == null ? -1 : indexes.get(value);
+        }
+    }
+}
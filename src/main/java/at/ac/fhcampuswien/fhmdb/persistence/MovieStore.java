@@ -0,0 +1,655 @@
+package at.ac.fhcampuswien.fhmdb.persistence;
+
+import at.ac.fhcampuswien.fhmdb.index.SearchIndex;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Genres;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Embedded, file-backed store of the catalog: the movies of the last run together with secondary indexes on
+// genre, release year and rating and a word index over title and description. The file is mapped into
+// memory and queried where it is; opening it reads the header and the small genre and year directories only,
+// and a query decodes just the movies of the window it is asked for. Whenever a newer catalog was loaded it is
+// written to a new generation file (movies.store.1, .2, ...): the mapped one stays untouched, Windows refuses
+// to replace a mapped file. The store file itself only names the current generation, open deletes the others.
+//
+// Layout (big endian), the header holds the start of every section:
+//   header:   int magic, int version, int movieCount, int stringCount, int termCount, int yearCount,
+//             int strings, int records, int genres, int years, int ratings, int terms
+//   strings:  (stringCount + 1) x int start in the string bytes, then the UTF-8 bytes of every distinct string
+//   records:  movieCount x int start in the record bytes, then per movie:
+//             int id, int title, int description, int genreMask, int releaseYear, int imgUrl, int lengthInMinutes,
+//             double rating, 3 x (int size, size x int) for directors, writers and mainCast
+//   genres:   per Genre ordinal: int count, count x int movie
+//   years:    yearCount x (int year, int count, count x int movie), years ascending
+//   ratings:  movieCount x double rating ascending, then movieCount x int movie in the same order
+//   terms:    termCount x (int term, int count, count x int movie), terms (folded words) sorted
+// Movies are numbered in catalog order and every list of movie numbers is ascending. Strings are referenced
+// by their index in the string table, -1 stands for null (also for lists).
+public class MovieStore {
+    private static final int MAGIC = 0x464D5354; // "FMST"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12 * Integer.BYTES;
+    private static final int RATING = 7 * Integer.BYTES; // position of the rating in a record
+
+    private final MappedByteBuffer buffer; // only read with absolute positions, so queries can run in parallel
+    private final int movieCount;
+    private final int stringCount;
+    private final int termCount;
+    private final int strings;
+    private final int stringBytes;
+    private final int records;
+    private final int recordBytes;
+    private final int ratings;
+    private final int terms;
+    private final int[] genreLists = new int[Genre.values().length]; // genre ordinal -> start of its movie list
+    private final Map<Integer, Integer> yearLists = new HashMap<>(); // release year -> start of its movie list
+    private Vocabulary vocabulary; // read by the first text query
+
+    private MovieStore(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        movieCount = buffer.getInt(8);
+        stringCount = buffer.getInt(12);
+        termCount = buffer.getInt(16);
+        int yearCount = buffer.getInt(20);
+        strings = buffer.getInt(24);
+        stringBytes = strings + (stringCount + 1) * Integer.BYTES;
+        records = buffer.getInt(28);
+        recordBytes = records + movieCount * Integer.BYTES;
+        ratings = buffer.getInt(40);
+        terms = buffer.getInt(44);
+
+        int at = buffer.getInt(32);
+        for (int genre = 0; genre < genreLists.length; genre++) {
+            genreLists[genre] = at;
+            at += (1 + buffer.getInt(at)) * Integer.BYTES;
+        }
+        at = buffer.getInt(36);
+        for (int year = 0; year < yearCount; year++) {
+            yearLists.put(buffer.getInt(at), at + Integer.BYTES);
+            at += (2 + buffer.getInt(at + Integer.BYTES)) * Integer.BYTES;
+        }
+    }
+
+    public static Path defaultFile() {
+        return Path.of(System.getProperty("fhmdb.storeFile",
+                Path.of(System.getProperty("user.home"), ".fhmdb", "movies.store").toString()));
+    }
+
+    // maps the current generation, nothing but the header and the genre and year directories is read yet;
+    // older generations are deleted as far as no store of this process still maps them
+    public static MovieStore open(Path file) throws IOException {
+        Path generation = currentGeneration(file);
+        for (Path other : generations(file)) {
+            if (!other.equals(generation)) {
+                try {
+                    Files.deleteIfExists(other);
+                } catch (IOException e) {
+                    // still mapped, gone at the next start
+                }
+            }
+        }
+        return map(generation);
+    }
+
+    private static MovieStore map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a movie store: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a movie store: " + file);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported movie store version " + buffer.getInt(4));
+            }
+            for (int section = 24; section < HEADER_BYTES; section += Integer.BYTES) {
+                if (buffer.getInt(section) < HEADER_BYTES || buffer.getInt(section) > buffer.capacity()) {
+                    throw new IOException("Corrupt movie store " + file);
+                }
+            }
+            return new MovieStore(buffer);
+        } catch (RuntimeException e) { // truncated or corrupt file
+            throw new IOException("Corrupt movie store " + file, e);
+        }
+    }
+
+    public int size() {
+        return movieCount;
+    }
+
+    // the movies offset to offset + limit - 1 in catalog order, only those are decoded
+    public List<Movie> page(int offset, int limit) {
+        int end = (int) Math.min((long) offset + limit, movieCount);
+        List<Movie> page = new ArrayList<>(Math.max(0, end - offset));
+        for (int movie = offset; movie < end; movie++) {
+            page.add(movie(movie, null));
+        }
+        return page;
+    }
+
+    // the whole catalog, every string is decoded once
+    public List<Movie> readAll() {
+        String[] decoded = new String[stringCount];
+        List<Movie> movies = new ArrayList<>(movieCount);
+        for (int movie = 0; movie < movieCount; movie++) {
+            movies.add(movie(movie, decoded));
+        }
+        return movies;
+    }
+
+    // The movies matching all given criteria (null or empty = no restriction) with the same meaning as
+    // MovieIndex.filter, in catalog order. The indexes narrow down the candidates right away; checking the
+    // whole query text and decoding the movies happens window by window in Query.window.
+    public Query query(String text, Genre genre, Integer releaseYear, Double ratingFrom) {
+        String folded = text == null || text.isEmpty() ? null : SearchIndex.fold(text);
+        int[] candidates = null; // ascending movie numbers, null = every movie
+        if (genre != null) {
+            candidates = movieList(genreLists[genre.ordinal()]);
+        }
+        if (releaseYear != null) {
+            Integer list = yearLists.get(releaseYear);
+            candidates = intersect(candidates, list != null ? movieList(list) : new int[0]);
+        }
+        if (folded != null) {
+            for (String token : SearchIndex.tokenize(folded)) {
+                if (candidates != null && candidates.length == 0) {
+                    break;
+                }
+                candidates = intersect(candidates, moviesWithTermContaining(token));
+            }
+        }
+        boolean checkRating = ratingFrom != null && ratingFrom > 0;
+        if (checkRating && candidates == null) { // the rating index only helps if nothing else narrowed it down
+            candidates = moviesRatedAtLeast(ratingFrom);
+            checkRating = false;
+        }
+        return new Query(candidates, folded, checkRating ? ratingFrom : null);
+    }
+
+    // One query result, handed out window by window. Candidates are checked in order until the window is
+    // complete, so a window costs as much as the candidates up to its end and not the whole result.
+    public final class Query {
+        private final int[] candidates;
+        private final String folded;
+        private final Double ratingFrom;
+        private int checked; // candidates checked so far
+        private int[] matches = new int[16];
+        private int matchCount;
+
+        private Query(int[] candidates, String folded, Double ratingFrom) {
+            this.candidates = candidates;
+            this.folded = folded;
+            this.ratingFrom = ratingFrom;
+        }
+
+        // the matching movies offset to offset + limit - 1, fewer or none at the end
+        public synchronized List<Movie> window(int offset, int limit) {
+            int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+            int total = candidates != null ? candidates.length : movieCount;
+            while (matchCount < wanted && checked < total) {
+                int movie = candidates != null ? candidates[checked] : checked;
+                checked++;
+                if (matches(movie)) {
+                    if (matchCount == matches.length) {
+                        matches = Arrays.copyOf(matches, matchCount * 2);
+                    }
+                    matches[matchCount++] = movie;
+                }
+            }
+            List<Movie> window = new ArrayList<>();
+            for (int i = offset; i < Math.min(matchCount, wanted); i++) {
+                window.add(movie(matches[i], null));
+            }
+            return window;
+        }
+
+        private boolean matches(int movie) {
+            int at = record(movie);
+            if (ratingFrom != null && buffer.getDouble(at + RATING) < ratingFrom) {
+                return false;
+            }
+            // the words only narrowed down the candidates, the whole query still has to appear as written
+            return folded == null
+                    || SearchIndex.containsFolded(string(buffer.getInt(at + 4), null), folded)
+                    || SearchIndex.containsFolded(string(buffer.getInt(at + 8), null), folded);
+        }
+    }
+
+    private int record(int movie) {
+        return recordBytes + buffer.getInt(records + movie * Integer.BYTES);
+    }
+
+    private Movie movie(int movie, String[] decoded) {
+        int at = record(movie);
+        String id = string(buffer.getInt(at), decoded);
+        String title = string(buffer.getInt(at + 4), decoded);
+        String description = string(buffer.getInt(at + 8), decoded);
+        List<Genre> genres = Genres.fromMask(buffer.getInt(at + 12));
+        int releaseYear = buffer.getInt(at + 16);
+        String imgUrl = string(buffer.getInt(at + 20), decoded);
+        int lengthInMinutes = buffer.getInt(at + 24);
+        double rating = buffer.getDouble(at + RATING);
+        at += RATING + Double.BYTES;
+        List<String> directors = list(at, decoded);
+        at += listBytes(at);
+        List<String> writers = list(at, decoded);
+        at += listBytes(at);
+        List<String> mainCast = list(at, decoded);
+        return new Movie(id, title, description, genres, releaseYear, imgUrl, lengthInMinutes, directors, writers,
+                mainCast, rating);
+    }
+
+    private List<String> list(int at, String[] decoded) {
+        int size = buffer.getInt(at);
+        if (size < 0) {
+            return null;
+        }
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = string(buffer.getInt(at + (1 + i) * Integer.BYTES), decoded);
+        }
+        return Arrays.asList(values);
+    }
+
+    private int listBytes(int at) {
+        return (1 + Math.max(0, buffer.getInt(at))) * Integer.BYTES;
+    }
+
+    // decoded (optional) keeps the strings decoded before
+    private String string(int index, String[] decoded) {
+        if (index < 0) {
+            return null;
+        }
+        if (decoded != null && decoded[index] != null) {
+            return decoded[index];
+        }
+        int start = buffer.getInt(strings + index * Integer.BYTES);
+        byte[] bytes = new byte[buffer.getInt(strings + (index + 1) * Integer.BYTES) - start];
+        buffer.get(stringBytes + start, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (decoded != null) {
+            decoded[index] = value;
+        }
+        return value;
+    }
+
+    // an int count at the given position followed by that many movie numbers
+    private int[] movieList(int at) {
+        int[] movies = new int[buffer.getInt(at)];
+        buffer.slice(at + Integer.BYTES, movies.length * Integer.BYTES).asIntBuffer().get(movies);
+        return movies;
+    }
+
+    private int[] moviesRatedAtLeast(double ratingFrom) {
+        int low = 0;
+        int high = movieCount;
+        while (low < high) { // first rating >= ratingFrom
+            int middle = (low + high) >>> 1;
+            if (buffer.getDouble(ratings + middle * Double.BYTES) < ratingFrom) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int[] movies = new int[movieCount - low];
+        buffer.slice(ratings + movieCount * Double.BYTES + low * Integer.BYTES, movies.length * Integer.BYTES)
+                .asIntBuffer().get(movies);
+        Arrays.sort(movies);
+        return movies;
+    }
+
+    // movies with a word in title or description that contains the token; the vocabulary is small enough to scan
+    private int[] moviesWithTermContaining(String token) {
+        Vocabulary words = vocabulary();
+        List<int[]> lists = new ArrayList<>();
+        int total = 0;
+        for (int term = 0; term < words.terms.length; term++) {
+            if (words.terms[term].contains(token)) {
+                int[] movies = movieList(words.lists[term]);
+                lists.add(movies);
+                total += movies.length;
+            }
+        }
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        int[] union = new int[total];
+        int size = 0;
+        for (int[] movies : lists) {
+            System.arraycopy(movies, 0, union, size, movies.length);
+            size += movies.length;
+        }
+        Arrays.sort(union);
+        int distinct = 0;
+        for (int i = 0; i < union.length; i++) {
+            if (i == 0 || union[i] != union[i - 1]) {
+                union[distinct++] = union[i];
+            }
+        }
+        return Arrays.copyOf(union, distinct);
+    }
+
+    private synchronized Vocabulary vocabulary() {
+        if (vocabulary == null) {
+            String[] words = new String[termCount];
+            int[] lists = new int[termCount];
+            int at = terms;
+            for (int term = 0; term < termCount; term++) {
+                words[term] = string(buffer.getInt(at), null);
+                lists[term] = at + Integer.BYTES;
+                at += (2 + buffer.getInt(at + Integer.BYTES)) * Integer.BYTES;
+            }
+            vocabulary = new Vocabulary(words, lists);
+        }
+        return vocabulary;
+    }
+
+    // null stands for every movie
+    private static int[] intersect(int[] a, int[] b) {
+        if (a == null) {
+            return b;
+        }
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static final class Vocabulary {
+        private final String[] terms;
+        private final int[] lists; // start of the movie list of every term
+
+        Vocabulary(String[] terms, int[] lists) {
+            this.terms = terms;
+            this.lists = lists;
+        }
+    }
+
+    public static void write(List<Movie> movies, Path file) throws IOException {
+        // the words of every movie; its terms go into the string table as well
+        Map<String, Ints> moviesByTerm = new HashMap<>();
+        for (int movie = 0; movie < movies.size(); movie++) {
+            Set<String> words = new LinkedHashSet<>();
+            words.addAll(SearchIndex.tokenize(SearchIndex.fold(movies.get(movie).getTitle())));
+            words.addAll(SearchIndex.tokenize(SearchIndex.fold(movies.get(movie).getDescription())));
+            for (String word : words) {
+                moviesByTerm.computeIfAbsent(word, w -> new Ints()).add(movie);
+            }
+        }
+        String[] termList = moviesByTerm.keySet().toArray(new String[0]);
+        Arrays.sort(termList);
+
+        StringTable table = new StringTable();
+        Ints[] moviesByGenre = new Ints[Genre.values().length];
+        Arrays.setAll(moviesByGenre, genre -> new Ints());
+        TreeMap<Integer, Ints> moviesByYear = new TreeMap<>();
+        long recordSize = 0;
+        for (int movie = 0; movie < movies.size(); movie++) {
+            Movie each = movies.get(movie);
+            table.add(each.getId());
+            table.add(each.getTitle());
+            table.add(each.getDescription());
+            table.add(each.getImgUrl());
+            table.addAll(each.getDirectors());
+            table.addAll(each.getWriters());
+            table.addAll(each.getMainCast());
+            for (int genres = each.getGenreMask(); genres != 0; genres &= genres - 1) {
+                moviesByGenre[Integer.numberOfTrailingZeros(genres)].add(movie);
+            }
+            if (each.getReleaseYear() > 0) {
+                moviesByYear.computeIfAbsent(each.getReleaseYear(), year -> new Ints()).add(movie);
+            }
+            recordSize += RATING + Double.BYTES + listSize(each.getDirectors()) + listSize(each.getWriters())
+                    + listSize(each.getMainCast());
+        }
+        for (String term : termList) {
+            table.add(term);
+        }
+        long stringSize = 0;
+        byte[][] encoded = new byte[table.values.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = table.values.get(i).getBytes(StandardCharsets.UTF_8);
+            stringSize += encoded[i].length;
+        }
+        int[] byRating = byRating(movies);
+
+        long strings = HEADER_BYTES;
+        long records = strings + (encoded.length + 1L) * Integer.BYTES + stringSize;
+        long genres = records + (long) movies.size() * Integer.BYTES + recordSize;
+        long years = genres;
+        for (Ints list : moviesByGenre) {
+            years += (1L + list.size) * Integer.BYTES;
+        }
+        long ratings = years;
+        for (Ints list : moviesByYear.values()) {
+            ratings += (2L + list.size) * Integer.BYTES;
+        }
+        long terms = ratings + (long) movies.size() * (Double.BYTES + Integer.BYTES);
+        long end = terms;
+        for (String term : termList) {
+            end += (2L + moviesByTerm.get(term).size) * Integer.BYTES;
+        }
+        if (end > Integer.MAX_VALUE) {
+            throw new IOException("Catalog too large for a movie store: " + end + " bytes");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(movies.size());
+            out.writeInt(encoded.length);
+            out.writeInt(termList.length);
+            out.writeInt(moviesByYear.size());
+            for (long section : new long[]{strings, records, genres, years, ratings, terms}) {
+                out.writeInt((int) section);
+            }
+
+            int start = 0;
+            for (byte[] bytes : encoded) {
+                out.writeInt(start);
+                start += bytes.length;
+            }
+            out.writeInt(start);
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+
+            start = 0;
+            for (Movie movie : movies) {
+                out.writeInt(start);
+                start += RATING + Double.BYTES + listSize(movie.getDirectors()) + listSize(movie.getWriters())
+                        + listSize(movie.getMainCast());
+            }
+            for (Movie movie : movies) {
+                out.writeInt(table.indexOf(movie.getId()));
+                out.writeInt(table.indexOf(movie.getTitle()));
+                out.writeInt(table.indexOf(movie.getDescription()));
+                out.writeInt(movie.getGenreMask());
+                out.writeInt(movie.getReleaseYear());
+                out.writeInt(table.indexOf(movie.getImgUrl()));
+                out.writeInt(movie.getLengthInMinutes());
+                out.writeDouble(movie.getRating());
+                writeList(out, table, movie.getDirectors());
+                writeList(out, table, movie.getWriters());
+                writeList(out, table, movie.getMainCast());
+            }
+
+            for (Ints list : moviesByGenre) {
+                list.writeTo(out);
+            }
+            for (Map.Entry<Integer, Ints> year : moviesByYear.entrySet()) {
+                out.writeInt(year.getKey());
+                year.getValue().writeTo(out);
+            }
+            for (int movie : byRating) {
+                out.writeDouble(movies.get(movie).getRating());
+            }
+            for (int movie : byRating) {
+                out.writeInt(movie);
+            }
+            for (String term : termList) {
+                out.writeInt(table.indexOf(term));
+                moviesByTerm.get(term).writeTo(out);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        int next = 1;
+        for (Path generation : generations(file)) {
+            next = Math.max(next, generationNumber(file, generation) + 1);
+        }
+        Path generation = file.resolveSibling(file.getFileName() + "." + next);
+        Files.move(temp, generation, StandardCopyOption.ATOMIC_MOVE);
+
+        // the store file is small and never mapped, so it can be replaced
+        Path pointer = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+        Files.writeString(pointer, generation.getFileName().toString());
+        Files.move(pointer, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // the generation file the store file names
+    private static Path currentGeneration(Path file) throws IOException {
+        if (Files.size(file) > 255) {
+            throw new IOException("Not a movie store: " + file);
+        }
+        Path generation = file.resolveSibling(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim());
+        if (generationNumber(file, generation) < 0) {
+            throw new IOException("Not a movie store: " + file);
+        }
+        return generation;
+    }
+
+    private static List<Path> generations(Path file) throws IOException {
+        List<Path> generations = new ArrayList<>();
+        Path directory = file.toAbsolutePath().getParent();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, file.getFileName() + ".*")) {
+                for (Path each : files) {
+                    if (generationNumber(file, each) >= 0) {
+                        generations.add(file.resolveSibling(each.getFileName()));
+                    }
+                }
+            }
+        }
+        return generations;
+    }
+
+    // the n of "<store file name>.n", -1 for any other name
+    private static int generationNumber(Path file, Path generation) {
+        String prefix = file.getFileName() + ".";
+        String name = generation.getFileName().toString();
+        if (!name.startsWith(prefix) || name.length() == prefix.length() || name.length() > prefix.length() + 9
+                || !name.substring(prefix.length()).chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return -1;
+        }
+        return Integer.parseInt(name.substring(prefix.length()));
+    }
+
+    // movie numbers ordered by rating, equal ratings in catalog order; ratings are ranked among the few distinct values
+    private static int[] byRating(List<Movie> movies) {
+        double[] distinct = movies.stream().mapToDouble(Movie::getRating).sorted().distinct().toArray();
+        long[] packed = new long[movies.size()];
+        for (int movie = 0; movie < packed.length; movie++) {
+            packed[movie] = ((long) Arrays.binarySearch(distinct, movies.get(movie).getRating()) << 32) | movie;
+        }
+        Arrays.sort(packed);
+        int[] order = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
+    }
+
+    private static int listSize(List<String> values) {
+        return (1 + (values != null ? values.size() : 0)) * Integer.BYTES;
+    }
+
+    private static void writeList(DataOutputStream out, StringTable table, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeInt(table.indexOf(value));
+        }
+    }
+
+    // growable list of movie numbers, written as count and values
+    private static final class Ints {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(values[i]);
+            }
+        }
+    }
+
+    // every distinct string gets one index, repeated names (directors, cast, ...) are stored once
+    private static class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        void add(String value) {
+            if (value != null && !indexes.containsKey(value)) {
+                indexes.put(value, values.size());
+                values.add(value);
+            }
+        }
+
+        void addAll(List<String> list) {
+            if (list != null) {
+                list.forEach(this::add);
+            }
+        }
+
+        int indexOf(String value) {
+            return value == null ? -1 : indexes.get(value);
+        }
+    }
+}
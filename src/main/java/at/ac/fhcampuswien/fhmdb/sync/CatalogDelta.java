@@ -0,0 +1,49 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// what differs between two versions of the catalog, movies are matched by Movie.getId
+public class CatalogDelta {
+    private final List<Movie> added;
+    private final List<Movie> changed;
+    private final List<String> removedIds;
+
+    public CatalogDelta(List<Movie> added, List<Movie> changed, List<String> removedIds) {
+        this.added = added;
+        this.changed = changed;
+        this.removedIds = removedIds;
+    }
+
+    public List<Movie> getAdded() {
+        return added;
+    }
+
+    // the new versions of movies that were in the catalog before
+    public List<Movie> getChanged() {
+        return changed;
+    }
+
+    public List<String> getRemovedIds() {
+        return removedIds;
+    }
+
+    // added and changed movies
+    public List<Movie> getUpserted() {
+        List<Movie> upserted = new ArrayList<>(added.size() + changed.size());
+        upserted.addAll(added);
+        upserted.addAll(changed);
+        return upserted;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removedIds.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return added.size() + " added, " + changed.size() + " changed, " + removedIds.size() + " removed";
+    }
+}
@@ -0,0 +1,145 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.api.CatalogChanges;
+import at.ac.fhcampuswien.fhmdb.index.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The local catalog and its MovieIndex, with a content hash per Movie.getId. A newer catalog is applied as a
+// delta: only added, changed and removed movies reach the index, and movies that did not change stay the same
+// objects, so the list view keeps their rows as well. The delta comes from the server's change feed if it has
+// one (apply), otherwise from comparing the content hashes of a full download with the local ones (update).
+public class CatalogSync {
+    private MovieIndex index;
+    private Map<String, Long> hashes; // id -> Movie.contentHash, computed when the first delta is needed
+    private String version; // what the server calls the local catalog, null if unknown
+
+    public synchronized MovieIndex getIndex() {
+        return index;
+    }
+
+    // the version the change feed continues from
+    public synchronized String getVersion() {
+        return version;
+    }
+
+    // starts with a catalog from elsewhere, e.g. the snapshot of an earlier run. Returns its index, or null
+    // if the catalog is empty or there is one already, which is at least as new
+    public synchronized MovieIndex initialize(List<Movie> catalog) {
+        if (index != null || catalog.isEmpty()) {
+            return null;
+        }
+        replace(catalog, null);
+        return index;
+    }
+
+    // The whole catalog as downloaded, version is its ETag. The first one is indexed as it is, later ones are
+    // compared with the local catalog and only the differences are applied.
+    public synchronized CatalogDelta update(List<Movie> catalog, String version) {
+        if (index == null) {
+            replace(catalog, version);
+            return new CatalogDelta(catalog, List.of(), List.of());
+        }
+        Map<String, Long> hashes = hashes();
+        if (hashes.size() != index.getMovies().size()) { // ids repeat, then movies cannot be matched by id
+            return replaceAll(catalog, version);
+        }
+        List<Movie> added = new ArrayList<>();
+        List<Movie> changed = new ArrayList<>();
+        Set<String> ids = new HashSet<>(catalog.size() * 2);
+        for (Movie movie : catalog) {
+            String id = movie.getId();
+            if (!ids.add(id)) {
+                return replaceAll(catalog, version);
+            }
+            Long hash = hashes.get(id);
+            if (hash == null) {
+                added.add(movie);
+            } else if (hash != movie.contentHash()) {
+                changed.add(movie);
+            }
+        }
+        List<String> removedIds = new ArrayList<>();
+        for (String id : hashes.keySet()) {
+            if (!ids.contains(id)) {
+                removedIds.add(id);
+            }
+        }
+        CatalogDelta delta = new CatalogDelta(added, changed, removedIds);
+        apply(delta, version);
+        return delta;
+    }
+
+    // Changes from the feed. Movies the feed reports although they are the same as the local ones and
+    // removals of movies that are not here are left out. Null if there is no catalog to apply them to.
+    public synchronized CatalogDelta apply(CatalogChanges changes) {
+        if (index == null) {
+            return null;
+        }
+        Map<String, Long> hashes = hashes();
+        List<Movie> added = new ArrayList<>();
+        List<Movie> changed = new ArrayList<>();
+        for (Movie movie : changes.getChanged()) {
+            Long hash = hashes.get(movie.getId());
+            if (hash == null) {
+                added.add(movie);
+            } else if (hash != movie.contentHash()) {
+                changed.add(movie);
+            }
+        }
+        List<String> removedIds = new ArrayList<>();
+        for (String id : changes.getRemoved()) {
+            if (hashes.containsKey(id)) {
+                removedIds.add(id);
+            }
+        }
+        CatalogDelta delta = new CatalogDelta(added, changed, removedIds);
+        apply(delta, changes.getVersion());
+        return delta;
+    }
+
+    private void apply(CatalogDelta delta, String version) {
+        this.version = version;
+        if (delta.isEmpty()) {
+            return;
+        }
+        for (String id : delta.getRemovedIds()) {
+            hashes.remove(id);
+        }
+        List<Movie> upserted = delta.getUpserted();
+        for (Movie movie : upserted) {
+            hashes.put(movie.getId(), movie.contentHash());
+        }
+        index = index.update(upserted, delta.getRemovedIds());
+    }
+
+    // everything is removed and added again
+    private CatalogDelta replaceAll(List<Movie> catalog, String version) {
+        List<String> removedIds = new ArrayList<>(hashes().keySet());
+        replace(catalog, version);
+        return new CatalogDelta(catalog, List.of(), removedIds);
+    }
+
+    private void replace(List<Movie> catalog, String version) {
+        index = new MovieIndex(catalog);
+        hashes = null;
+        this.version = version;
+    }
+
+    private Map<String, Long> hashes() {
+        if (hashes == null) {
+            List<Movie> movies = index.getMovies();
+            hashes = new HashMap<>(movies.size() * 2);
+            for (Movie movie : movies) {
+                hashes.put(movie.getId(), movie.contentHash());
+            }
+        }
+        return hashes;
+    }
+}
@@ -0,0 +1,40 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.text.Font;
+import javafx.util.Duration;
+
+// Debug view of Metrics.summary() on top of the app, refreshed every second while it is visible.
+// Does not take mouse input, so the list below can still be used.
+public class MetricsOverlay extends Label {
+    private final Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), event -> update()));
+
+    public MetricsOverlay() {
+        setFont(Font.font("Monospaced", 11));
+        setStyle("-fx-background-color: rgba(0, 0, 0, 0.8); -fx-text-fill: #f5c518; -fx-padding: 6;");
+        setMouseTransparent(true);
+        setVisible(false);
+        setAlignment(Pos.TOP_LEFT);
+        setMaxSize(USE_PREF_SIZE, USE_PREF_SIZE);
+        refresh.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    public void toggle() {
+        setVisible(!isVisible());
+        if (isVisible()) {
+            update();
+            refresh.play();
+        } else {
+            refresh.stop();
+        }
+    }
+
+    private void update() {
+        String summary = Metrics.summary();
+        setText(summary.isEmpty() ? "No metrics recorded yet" : summary.stripTrailing());
+    }
+}
@@ -1,8 +1,13 @@
 package at.ac.fhcampuswien.fhmdb.ui;
 
+import at.ac.fhcampuswien.fhmdb.events.CellUpdateEvent;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.metrics.Timer;
 import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Genres;
 import at.ac.fhcampuswien.fhmdb.models.Movie;
 import com.jfoenix.controls.JFXButton;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
@@ -17,7 +22,26 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A cell is reused for many movies while scrolling. Everything about layout and styling is set up once
+// in the constructor, updateItem only binds the data of the current movie.
 public class MovieCell extends ListCell<Movie> {
+    private static final Background BACKGROUND = new Background(new BackgroundFill(Color.web("#454545"), CornerRadii.EMPTY, Insets.EMPTY));
+    private static final Font TITLE_FONT = Font.font(20);
+    private static final Map<Integer, String> GENRE_TEXTS = new ConcurrentHashMap<>(); // genre mask -> label text
+    private static final double POSTER_HEIGHT = 150;
+    private static final Timer updateTimer = Metrics.timer("cell.update"); // its count is how often a cell was bound to a movie
+
+    // posters are shared by all cells and kept under -Dfhmdb.posterDir (default ~/.fhmdb/posters)
+    private static final PosterCache posters = new PosterCache(
+            Path.of(System.getProperty("fhmdb.posterDir", Path.of(System.getProperty("user.home"), ".fhmdb", "posters").toString())),
+            64L * 1024 * 1024, 128L * 1024 * 1024, POSTER_HEIGHT);
+
     private final Label title = new Label(); // Label for the movie title
     private final Label detail = new Label(); // Label for movie description
     private final Label runtimeAndRating = new Label(); // Label for runtime and rating
@@ -25,7 +49,59 @@ public class MovieCell extends ListCell<Movie> {
     private final JFXButton detailButton = new JFXButton("Details"); // Button to toggle details
     private final HBox runtimeRatingGenres = new HBox(runtimeAndRating, genres); // HBox for runtime, rating, and genres
     private final VBox layout = new VBox(title, detail, runtimeRatingGenres, detailButton); // Main layout container
-    private boolean collapsedDetails = true; // Tracks whether details are collapsed or expanded
+
+    // ids of the expanded movies, shared by all cells of the list so the state stays with the movie and not the cell
+    private final Set<String> expandedMovieIds;
+
+    // created when this cell shows expanded details for the first time, then reused
+    private VBox details;
+    private ImageView imageView;
+    private Label directors;
+    private Label writers;
+    private Label mainCast;
+
+    public MovieCell(Set<String> expandedMovieIds) {
+        this.expandedMovieIds = expandedMovieIds;
+
+        this.getStyleClass().add("movie-cell"); // Add style class for the cell
+
+        // Farbschema for labels
+        title.getStyleClass().add("text-yellow");
+        runtimeAndRating.getStyleClass().add("text-yellow");
+        genres.getStyleClass().add("text-lightgray-italic");
+        detail.getStyleClass().add("text-white");
+
+        layout.setBackground(BACKGROUND);
+
+        // Layout settings for runtime, rating, and genres in a single line (HBox)
+        runtimeRatingGenres.setSpacing(10);
+        runtimeRatingGenres.setAlignment(Pos.CENTER_LEFT);
+
+        // Layout settings for the main VBox
+        title.setFont(TITLE_FONT); // Set font size for the title
+        detail.maxWidthProperty().bind(widthProperty().subtract(30)); // Wrap text in description label
+        detail.setWrapText(true);
+        layout.setPadding(new Insets(10)); // Add padding around the layout
+        layout.setSpacing(3); // Add spacing between elements in the layout
+        layout.setAlignment(Pos.CENTER_LEFT); // Align elements to the left
+
+        // Button styling and fixed width
+        detailButton.setStyle("-fx-background-color: #AAAAAA; -fx-text-fill: black;");
+        detailButton.setPrefWidth(60); // Fixed width for the button
+
+        // Button click logic to toggle details visibility (including image) of the movie shown right now
+        detailButton.setOnMouseClicked(mouseEvent -> {
+            Movie movie = getItem();
+            if (movie == null) {
+                return;
+            }
+            String id = movie.getId();
+            if (!expandedMovieIds.remove(id)) {
+                expandedMovieIds.add(id);
+            }
+            showDetails(movie, expandedMovieIds.contains(id));
+        });
+    }
 
     @Override
     protected void updateItem(Movie movie, boolean empty) {
@@ -34,98 +110,125 @@ public class MovieCell extends ListCell<Movie> {
         if (empty || movie == null) {
             setText(null); // Clear text if no movie is present
             setGraphic(null); // Clear graphic if no movie is present
+            return;
+        }
+
+        CellUpdateEvent event = new CellUpdateEvent();
+        event.begin();
+        long start = Metrics.start();
+
+        // Set title and release year
+        title.setText(movie.getTitle() + " (" + movie.getReleaseYear() + ")");
+
+        // Set description or fallback text if unavailable
+        detail.setText(movie.getDescription() != null ? movie.getDescription() : "No description available");
+
+        // Set runtime and rating with thin spaces for formatting
+        runtimeAndRating.setText(movie.getLengthInMinutes() + "\u2009min     ★\u2009" + movie.getRating() + "/10");
+
+        // Set genres
+        genres.setText(GENRE_TEXTS.computeIfAbsent(movie.getGenreMask(), MovieCell::genreText));
+
+        // most movies are collapsed, the id is only looked up if anything is expanded at all
+        boolean expanded = !expandedMovieIds.isEmpty() && expandedMovieIds.contains(movie.getId());
+        showDetails(movie, expanded);
+
+        setGraphic(layout); // Set the layout as the graphic for the cell
+        updateTimer.stop(start);
+        if (event.shouldCommit()) {
+            event.movieId = movie.getId();
+            event.expanded = expanded;
+            event.commit();
+        }
+    }
+
+    // in Genre order like Movie.getGenres
+    private static String genreText(int genreMask) {
+        StringBuilder text = new StringBuilder("  ");
+        for (Genre genre : Genres.fromMask(genreMask)) {
+            if (text.length() > 2) {
+                text.append(", ");
+            }
+            text.append(genre.name());
+        }
+        return text.toString();
+    }
+
+    private void showDetails(Movie movie, boolean expanded) {
+        boolean shown = details != null && layout.getChildren().contains(details);
+        if (expanded) {
+            bindDetails(movie);
+            if (!shown) {
+                layout.getChildren().add(details); // Add details to the layout
+            }
+            detailButton.setText("Hide"); // Change button text to "Hide"
         } else {
-            this.getStyleClass().add("movie-cell"); // Add style class for the cell
-
-            // Set title and release year
-            title.setText(movie.getTitle() + " (" + movie.getReleaseYear() + ")");
-
-            // Set description or fallback text if unavailable
-            detail.setText(movie.getDescription() != null ? movie.getDescription() : "No description available");
-
-            // Set runtime and rating with thin spaces for formatting
-            runtimeAndRating.setText(movie.getLengthInMinutes() + "\u2009min     ★\u2009" + movie.getRating() + "/10");
-
-            // Set genres
-            genres.setText("  " + String.join(", ", movie.getGenres().stream().map(Genre::name).toList()));
-
-
-            // Farbschema for labels
-            title.getStyleClass().add("text-yellow");
-            runtimeAndRating.getStyleClass().add("text-yellow");
-            genres.getStyleClass().add("text-lightgray-italic");
-            detail.getStyleClass().add("text-white");
-
-            layout.setBackground(new Background(new BackgroundFill(Color.web("#454545"), CornerRadii.EMPTY, Insets.EMPTY)));
-
-            // Layout settings for runtime, rating, and genres in a single line (HBox)
-            runtimeRatingGenres.setSpacing(10);
-            runtimeRatingGenres.setAlignment(Pos.CENTER_LEFT);
-
-            // Layout settings for the main VBox
-            title.getFont();
-            title.fontProperty().set(Font.font(20)); // Set font size for the title
-            detail.setMaxWidth(this.getScene().getWidth() - 30); // Wrap text in description label
-            detail.setWrapText(true);
-            layout.setPadding(new Insets(10)); // Add padding around the layout
-            layout.spacingProperty().set(3); // Add spacing between elements in the layout
-            layout.alignmentProperty().set(Pos.CENTER_LEFT); // Align elements to the left
-
-            // Button styling and fixed width
-            detailButton.setStyle("-fx-background-color: #AAAAAA; -fx-text-fill: black;");
-            detailButton.setPrefWidth(60); // Fixed width for the button
-
-            // Button click logic to toggle details visibility (including image)
-            detailButton.setOnMouseClicked(mouseEvent -> {
-                if (collapsedDetails) {
-                    layout.getChildren().add(getDetails(movie)); // Add details to the layout
-                    collapsedDetails = false; // Update state to expanded
-                    detailButton.setText("Hide"); // Change button text to "Hide"
-                } else {
-                    layout.getChildren().remove(layout.getChildren().size() - 1); // Remove details from the layout (last element)
-                    collapsedDetails = true; // Update state to collapsed
-                    detailButton.setText("Details"); // Change button text back to "Details"
-                }
-                setGraphic(layout); // Update the graphic of the cell
-            });
-
-            setGraphic(layout); // Set the layout as the graphic for the cell
+            if (shown) {
+                layout.getChildren().remove(details); // Remove details from the layout
+                imageView.setImage(null); // do not keep the poster of a collapsed movie alive
+            }
+            detailButton.setText("Details"); // Change button text back to "Details"
         }
     }
 
-    private VBox getDetails(Movie movie) {
-        VBox details = new VBox(); // Container for additional details
+    private void bindDetails(Movie movie) {
+        if (details == null) {
+            createDetails();
+        }
+
+        bindPoster(movie);
+
+        directors.setText("Directors: " + joinNames(movie.getDirectors()));
+        writers.setText("Writers: " + joinNames(movie.getWriters()));
+        mainCast.setText("Main Cast: " + joinNames(movie.getMainCast()));
+    }
+
+    private void bindPoster(Movie movie) {
+        String url = movie.getImgUrl();
+        Image poster = url != null ? posters.getIfPresent(url) : null;
+        imageView.setImage(poster);
+        if (poster != null || url == null) {
+            return;
+        }
+        // the cell may show another movie by the time the poster is ready
+        posters.get(url).thenAcceptAsync(image -> {
+            if (getItem() == movie && expandedMovieIds.contains(movie.getId())) {
+                imageView.setImage(image);
+            }
+        }, Platform::runLater);
+    }
+
+    public static PosterCache getPosterCache() {
+        return posters;
+    }
+
+    private static String joinNames(List<String> names) {
+        return names != null ? String.join(", ", names) : "";
+    }
+
+    private void createDetails() {
+        details = new VBox(); // Container for additional details
         HBox pictureAndDetails = new HBox();
         VBox innerBoxForDetails = new VBox();
         innerBoxForDetails.setMinHeight(150);
-        innerBoxForDetails.alignmentProperty().set(Pos.BOTTOM_LEFT);
-        pictureAndDetails.spacingProperty().set(3);
-
-        ImageView imageView = new ImageView(); // Image view for displaying the movie's image
-        try {
-            Image image = new Image(movie.getImgUrl(), true); // Load image from URL (lazy loading)
-            imageView.setImage(image);
-        } catch (Exception e) {
-            System.err.println("Error loading image: " + e.getMessage());
-        }
-        imageView.setFitHeight(150); // Set fixed height for the image
+        innerBoxForDetails.setAlignment(Pos.BOTTOM_LEFT);
+        pictureAndDetails.setSpacing(3);
+
+        imageView = new ImageView(); // Image view for displaying the movie's image
+        imageView.setFitHeight(POSTER_HEIGHT); // Set fixed height for the image
         imageView.setPreserveRatio(true); // Preserve aspect ratio of the image
 
-        Label directors = new Label("Directors: " + String.join(", ", movie.getDirectors())); // Directors label
-        Label writers = new Label("Writers: " + String.join(", ", movie.getWriters())); // Writers label
-        Label mainCast = new Label("Main Cast: " + String.join(", ", movie.getMainCast())); // Main cast label
+        directors = new Label(); // Directors label
+        writers = new Label(); // Writers label
+        mainCast = new Label(); // Main cast label
 
         directors.getStyleClass().add("text-white"); // Style for directors label
         writers.getStyleClass().add("text-white"); // Style for writers label
         mainCast.getStyleClass().add("text-white"); // Style for main cast label
 
         pictureAndDetails.getChildren().add(imageView);
-        innerBoxForDetails.getChildren().add(directors);
-        innerBoxForDetails.getChildren().add(writers);
-        innerBoxForDetails.getChildren().add(mainCast);
+        innerBoxForDetails.getChildren().addAll(directors, writers, mainCast);
         pictureAndDetails.getChildren().add(innerBoxForDetails);
         details.getChildren().add(pictureAndDetails);
-
-        return details; // Return container with additional details and image
     }
 }
@@ -0,0 +1,310 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import javafx.scene.image.Image;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Shared cache for the posters shown in the movie details, keyed by imgUrl.
+// Posters are downloaded and decoded on a background pool straight to the height they are displayed at,
+// so a full resolution image is never kept around. Decoded images live in an LRU bounded by their pixel
+// memory (4 bytes per pixel). The downloaded files can be kept on disk too, bounded by total bytes.
+// A poster that could not be loaded is not asked for again for a minute.
+public class PosterCache {
+    private static final OkHttpClient client = new OkHttpClient();
+    private static final long FAILURE_TTL_MILLIS = 60_000;
+
+    // background threads for downloading and decoding, daemon so a pending poster never keeps the app alive
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                Thread thread = new Thread(runnable, "poster-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final Path directory; // null = memory only
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final double height; // posters are decoded to this height, keeping their aspect ratio
+    private final Loader loader;
+
+    private final LinkedHashMap<String, Image> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private final Map<String, CompletableFuture<Image>> loading = new ConcurrentHashMap<>();
+    private final Map<String, Long> failedAt = new ConcurrentHashMap<>(); // url -> when its load failed
+
+    // the disk tier has its own lock, writing and trimming it never holds up getIfPresent on the fx thread
+    private final Object diskLock = new Object();
+    private long diskBytes = -1; // total size of the poster files, counted from the directory by the first write
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // downloads the encoded image for an url
+    interface Loader {
+        byte[] load(String url) throws IOException;
+    }
+
+    public PosterCache(Path directory, long maxMemoryBytes, long maxDiskBytes, double height) {
+        this(directory, maxMemoryBytes, maxDiskBytes, height, PosterCache::download);
+    }
+
+    PosterCache(Path directory, long maxMemoryBytes, long maxDiskBytes, double height, Loader loader) {
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        this.height = height;
+        this.loader = loader;
+    }
+
+    // the decoded poster if it is in memory right now, null otherwise
+    public Image getIfPresent(String url) {
+        synchronized (this) {
+            Image image = memory.get(url);
+            if (image != null) {
+                hits.incrementAndGet();
+            }
+            return image;
+        }
+    }
+
+    // completes with the decoded poster, or null if it could not be loaded
+    public CompletableFuture<Image> get(String url) {
+        Image cached = getIfPresent(url);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        Long failed = failedAt.get(url);
+        if (failed != null) {
+            if (System.currentTimeMillis() - failed < FAILURE_TTL_MILLIS) {
+                return CompletableFuture.completedFuture(null);
+            }
+            failedAt.remove(url, failed);
+        }
+        // cells asking for a poster that is already on its way share the same request
+        CompletableFuture<Image> future = loading.computeIfAbsent(url, key -> {
+            misses.incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> load(key), executor);
+        });
+        // outside of computeIfAbsent: a load finishing right away must not change the map while it is being changed,
+        // and only this request is removed, not a newer one for the same url
+        future.whenComplete((image, throwable) -> loading.remove(url, future));
+        return future;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    // pixel memory of all decoded posters in the cache
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized int size() {
+        return memory.size();
+    }
+
+    @Override
+    public String toString() {
+        return "PosterCache{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", diskHits=" + diskHits +
+                ", evictions=" + evictions +
+                ", hitRate=" + String.format("%.2f", getHitRate()) +
+                ", images=" + size() +
+                ", memoryBytes=" + getMemoryBytes() +
+                '}';
+    }
+
+    private Image load(String url) {
+        try {
+            byte[] encoded = readFromDisk(url);
+            if (encoded != null) {
+                diskHits.incrementAndGet();
+            } else {
+                encoded = loader.load(url);
+                writeToDisk(url, encoded);
+            }
+
+            // decodes and scales in one step on this thread, the fx thread only gets the finished image
+            Image image = new Image(new ByteArrayInputStream(encoded), 0, height, true, true);
+            if (image.isError()) {
+                throw new IOException("cannot decode image", image.getException());
+            }
+            remember(url, image);
+            return image;
+        } catch (Exception e) {
+            System.err.println("Error loading image " + url + ": " + e.getMessage());
+            failedAt.put(url, System.currentTimeMillis());
+            return null;
+        }
+    }
+
+    private static byte[] download(String url) throws IOException {
+        Request request = new Request.Builder().url(url).build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("HTTP " + response.code());
+            }
+            return response.body().bytes();
+        }
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    private synchronized void remember(String url, Image image) {
+        Image previous = memory.remove(url);
+        if (previous != null) {
+            memoryBytes -= sizeOf(previous);
+        }
+        if (sizeOf(image) > maxMemoryBytes) {
+            return;
+        }
+        memory.put(url, image);
+        memoryBytes += sizeOf(image);
+
+        Iterator<Image> leastRecentlyUsed = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes && leastRecentlyUsed.hasNext()) {
+            memoryBytes -= sizeOf(leastRecentlyUsed.next());
+            leastRecentlyUsed.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private byte[] readFromDisk(String url) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = fileFor(url);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            byte[] encoded = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis())); // for LRU eviction
+            return encoded;
+        } catch (IOException e) {
+            System.err.println("Could not read poster file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String url, byte[] encoded) {
+        if (directory == null || encoded.length > maxDiskBytes) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "poster", ".tmp");
+            Files.write(temp, encoded);
+            Path file = fileFor(url);
+            synchronized (diskLock) {
+                long replaced = Files.exists(file) ? Files.size(file) : 0;
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (diskBytes < 0) {
+                    diskBytes = posterFiles().stream().mapToLong(PosterCache::sizeOf).sum();
+                } else {
+                    diskBytes += encoded.length - replaced;
+                }
+                if (diskBytes > maxDiskBytes) {
+                    trimDisk();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write poster file: " + e.getMessage());
+        }
+    }
+
+    // deletes the least recently used files until the rest fits, called with diskLock held
+    private void trimDisk() throws IOException {
+        List<Path> files = posterFiles();
+        files.sort(Comparator.comparing(PosterCache::lastModified));
+        for (Path file : files) {
+            if (diskBytes <= maxDiskBytes) {
+                break;
+            }
+            long size = sizeOf(file);
+            Files.deleteIfExists(file);
+            diskBytes -= size;
+        }
+    }
+
+    private List<Path> posterFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(path -> path.toString().endsWith(".poster")).forEach(files::add);
+        }
+        return files;
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path fileFor(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + ".poster");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
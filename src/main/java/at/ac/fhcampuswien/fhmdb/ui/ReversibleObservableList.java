@@ -0,0 +1,413 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Observable list that can be shown in reverse order without moving its elements: setReversed only flips
+// how indexes are mapped and tells the listeners that everything was replaced, with the old order as a view.
+// The list view then only redraws its visible cells, so switching between ascending and descending is O(1).
+// update() replaces the content with a minimal set of changes, so rows that stay are not touched.
+public class ReversibleObservableList<E> extends ModifiableObservableListBase<E> {
+    private ArrayList<E> elements = new ArrayList<>();
+    private boolean reversed;
+    private int version; // changes whenever the elements change, but not when the direction is flipped
+
+    public boolean isReversed() {
+        return reversed;
+    }
+
+    public void setReversed(boolean reversed) {
+        if (this.reversed == reversed) {
+            return;
+        }
+        this.reversed = reversed;
+        if (elements.size() > 1) {
+            fireChange(new ReplaceAll(new Oriented(!reversed)));
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    // one change for the whole list instead of one removal per element, the new elements are not reversed
+    @Override
+    public boolean setAll(Collection<? extends E> collection) {
+        ArrayList<E> previous = elements;
+        List<E> removed = reversed ? reversedCopy(previous) : previous;
+        elements = new ArrayList<>(collection);
+        reversed = false;
+        version++;
+        if (!removed.isEmpty() || !elements.isEmpty()) {
+            beginChange();
+            nextReplace(0, elements.size(), removed);
+            endChange();
+        }
+        return true;
+    }
+
+    // Replaces the elements, but only reports what actually changed. Elements are matched by key; those that
+    // are the same object in both lists and keep their relative order (the longest such run, found in
+    // O(n log n)) stay where they are, everything between them is reported as one replaced range.
+    // A pure reordering is reported as a permutation. Keys must be unique, otherwise this is setAll.
+    public void update(List<? extends E> updated, Function<? super E, ?> key) {
+        List<E> previous = reversed ? new Oriented(true) : elements;
+        int[] previousPositions = previousPositions(previous, updated, key);
+        if (previousPositions == null) {
+            setAll(updated);
+            return;
+        }
+
+        ListChangeListener.Change<E> change;
+        if (isPermutation(previous, updated, previousPositions)) {
+            change = isIdentity(previousPositions) ? null : new Permutation(previousPositions);
+        } else {
+            change = editScript(previous, updated, previousPositions);
+        }
+        elements = new ArrayList<>(updated);
+        reversed = false;
+        version++;
+        if (change != null) {
+            fireChange(change);
+        }
+    }
+
+    // for every updated element its position in the previous list, -1 if it is new; null if keys repeat
+    private int[] previousPositions(List<E> previous, List<? extends E> updated, Function<? super E, ?> key) {
+        Map<Object, Integer> positions = new HashMap<>(previous.size() * 2);
+        for (int i = 0; i < previous.size(); i++) {
+            if (positions.put(keyOf(previous.get(i), key), i) != null) {
+                return null;
+            }
+        }
+        int[] previousPositions = new int[updated.size()];
+        boolean[] matched = new boolean[previous.size()];
+        for (int j = 0; j < updated.size(); j++) {
+            Integer i = positions.get(keyOf(updated.get(j), key));
+            if (i != null && matched[i]) {
+                return null;
+            }
+            previousPositions[j] = i != null ? i : -1;
+            if (i != null) {
+                matched[i] = true;
+            }
+        }
+        return previousPositions;
+    }
+
+    private static <E> Object keyOf(E element, Function<? super E, ?> key) {
+        Object value = key.apply(element);
+        return value != null ? value : element; // elements without a key are only equal to themselves
+    }
+
+    private static <E> boolean isPermutation(List<E> previous, List<? extends E> updated, int[] previousPositions) {
+        if (previous.size() != updated.size()) {
+            return false;
+        }
+        for (int j = 0; j < previousPositions.length; j++) {
+            if (previousPositions[j] < 0 || previous.get(previousPositions[j]) != updated.get(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIdentity(int[] previousPositions) {
+        for (int j = 0; j < previousPositions.length; j++) {
+            if (previousPositions[j] != j) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private EditScript editScript(List<E> previous, List<? extends E> updated, int[] previousPositions) {
+        int[] kept = longestIncreasingRun(previous, updated, previousPositions);
+        EditScript script = new EditScript();
+        int i = 0;
+        int j = 0;
+        for (int keptJ : kept) {
+            int keptI = previousPositions[keptJ];
+            script.add(j, keptJ, previous.subList(i, keptI));
+            i = keptI + 1;
+            j = keptJ + 1;
+        }
+        script.add(j, updated.size(), previous.subList(i, previous.size()));
+        return script.isEmpty() ? null : script;
+    }
+
+    // updated positions whose elements stay: same object as before, previous positions strictly increasing
+    private static <E> int[] longestIncreasingRun(List<E> previous, List<? extends E> updated, int[] previousPositions) {
+        int[] tails = new int[previousPositions.length]; // tails[k] = updated position ending a run of length k + 1
+        int[] predecessors = new int[previousPositions.length];
+        int length = 0;
+        for (int j = 0; j < previousPositions.length; j++) {
+            int i = previousPositions[j];
+            if (i < 0 || previous.get(i) != updated.get(j)) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (previousPositions[tails[middle]] < i) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            predecessors[j] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = j;
+            length = Math.max(length, low + 1);
+        }
+        int[] run = new int[length];
+        for (int k = length - 1, j = length > 0 ? tails[length - 1] : -1; k >= 0; k--, j = predecessors[j]) {
+            run[k] = j;
+        }
+        return run;
+    }
+
+    // one change for all of them; reversed, the end of the list is the start of the elements
+    @Override
+    public boolean addAll(Collection<? extends E> collection) {
+        if (collection.isEmpty()) {
+            return false;
+        }
+        int from = elements.size();
+        if (reversed) {
+            elements.addAll(0, reversedCopy(new ArrayList<E>(collection)));
+        } else {
+            elements.addAll(collection);
+        }
+        version++;
+        beginChange();
+        nextAdd(from, elements.size());
+        endChange();
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        setAll(Collections.emptyList());
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(physical(index));
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    protected void doAdd(int index, E element) {
+        version++;
+        elements.add(reversed ? elements.size() - index : index, element);
+    }
+
+    @Override
+    protected E doSet(int index, E element) {
+        version++;
+        return elements.set(physical(index), element);
+    }
+
+    @Override
+    protected E doRemove(int index) {
+        version++;
+        return elements.remove(physical(index));
+    }
+
+    private int physical(int index) {
+        return reversed ? elements.size() - 1 - index : index;
+    }
+
+    private static <E> List<E> reversedCopy(List<E> list) {
+        List<E> copy = new ArrayList<>(list);
+        Collections.reverse(copy);
+        return copy;
+    }
+
+    // the elements in one direction, without copying them
+    private final class Oriented extends AbstractList<E> {
+        private final List<E> source = elements;
+        private final boolean reversed;
+
+        Oriented(boolean reversed) {
+            this.reversed = reversed;
+        }
+
+        @Override
+        public E get(int index) {
+            return source.get(reversed ? source.size() - 1 - index : index);
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+    }
+
+    // replaced ranges in ascending order, from/to index into the new list, removed are the elements they replace
+    private final class EditScript extends ListChangeListener.Change<E> {
+        private int[] from = new int[4];
+        private int[] to = new int[4];
+        private final List<List<E>> removed = new ArrayList<>();
+        private int cursor = -1;
+
+        EditScript() {
+            super(ReversibleObservableList.this);
+        }
+
+        void add(int from, int to, List<E> removed) {
+            if (from == to && removed.isEmpty()) {
+                return;
+            }
+            int size = this.removed.size();
+            if (size == this.from.length) {
+                this.from = Arrays.copyOf(this.from, size * 2);
+                this.to = Arrays.copyOf(this.to, size * 2);
+            }
+            this.from[size] = from;
+            this.to[size] = to;
+            this.removed.add(removed);
+        }
+
+        boolean isEmpty() {
+            return removed.isEmpty();
+        }
+
+        @Override
+        public boolean next() {
+            return ++cursor < removed.size();
+        }
+
+        @Override
+        public void reset() {
+            cursor = -1;
+        }
+
+        @Override
+        public int getFrom() {
+            return from[cursor];
+        }
+
+        @Override
+        public int getTo() {
+            return to[cursor];
+        }
+
+        @Override
+        public List<E> getRemoved() {
+            return removed.get(cursor);
+        }
+
+        @Override
+        protected int[] getPermutation() {
+            return new int[0];
+        }
+    }
+
+    // the same elements in a new order, permutation[i] = new position of the element that was at i
+    private final class Permutation extends ListChangeListener.Change<E> {
+        private final int[] permutation;
+        private boolean started;
+
+        Permutation(int[] previousPositions) {
+            super(ReversibleObservableList.this);
+            permutation = new int[previousPositions.length];
+            for (int j = 0; j < previousPositions.length; j++) {
+                permutation[previousPositions[j]] = j;
+            }
+        }
+
+        @Override
+        public boolean next() {
+            if (started) {
+                return false;
+            }
+            started = true;
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            started = false;
+        }
+
+        @Override
+        public int getFrom() {
+            return 0;
+        }
+
+        @Override
+        public int getTo() {
+            return permutation.length;
+        }
+
+        @Override
+        public List<E> getRemoved() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        protected int[] getPermutation() {
+            return permutation;
+        }
+    }
+
+    private final class ReplaceAll extends ListChangeListener.Change<E> {
+        private final List<E> removed;
+        private boolean started;
+
+        ReplaceAll(List<E> removed) {
+            super(ReversibleObservableList.this);
+            this.removed = removed;
+        }
+
+        @Override
+        public boolean next() {
+            if (started) {
+                return false;
+            }
+            started = true;
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            started = false;
+        }
+
+        @Override
+        public int getFrom() {
+            return 0;
+        }
+
+        @Override
+        public int getTo() {
+            return removed.size();
+        }
+
+        @Override
+        public List<E> getRemoved() {
+            return removed;
+        }
+
+        @Override
+        protected int[] getPermutation() {
+            return new int[0];
+        }
+    }
+}
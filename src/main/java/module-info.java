@@ -4,9 +4,11 @@ module at.ac.fhcampuswien.fhmdb {
 
     requires com.jfoenix;
     requires okhttp3;
+    requires okhttp3.brotli;
     requires java.net.http;
     requires com.google.gson;
     requires jdk.jdi;
+    requires jdk.jfr;
 
     opens at.ac.fhcampuswien.fhmdb.models to com.google.gson;
 
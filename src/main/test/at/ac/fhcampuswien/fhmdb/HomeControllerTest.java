@@ -3,6 +3,8 @@ package at.ac.fhcampuswien.fhmdb;
 import at.ac.fhcampuswien.fhmdb.api.MovieApi;
 import at.ac.fhcampuswien.fhmdb.models.Genre;
 import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.QueryMode;
+import at.ac.fhcampuswien.fhmdb.models.SortField;
 import at.ac.fhcampuswien.fhmdb.models.SortState;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -119,6 +121,38 @@ class HomeControllerTest {
 
 
 
+    @Test
+    void filter_by_search_query_matches_inside_words_and_across_words() {
+        // Given
+        homeController.initializeStateWithDummyMovies();
+
+        // When
+        List<Movie> insideWord = homeController.filterBySearchQuery("HATTAN");
+        List<Movie> acrossWords = homeController.filterBySearchQuery("the f");
+
+        // Then
+        assertEquals(List.of("Oppenheimer"), insideWord.stream().map(Movie::getTitle).toList());
+        assertEquals(List.of("CODA", "The Father"), acrossWords.stream().map(Movie::getTitle).toList());
+    }
+
+
+
+    @Test
+    void filter_by_search_query_uses_new_movies_after_allMovies_is_replaced() {
+        // Given
+        homeController.initializeStateWithDummyMovies();
+        homeController.filterBySearchQuery("joker");
+        homeController.allMovies = List.of(new Movie("Jokerland", "A new movie", List.of(Genre.COMEDY)));
+
+        // When
+        List<Movie> result = homeController.filterBySearchQuery("joker");
+
+        // Then
+        assertEquals(List.of("Jokerland"), result.stream().map(Movie::getTitle).toList());
+    }
+
+
+
     @Test
     void empty_search_query_returns_all_movies() {
         // Given
@@ -151,6 +185,50 @@ class HomeControllerTest {
 
 
 
+    @Test
+    void apply_filters_applies_genre_release_year_and_rating() {
+        // Given
+        homeController.allMovies = List.of(
+                new Movie("1", "Heat", "A heist", List.of(Genre.CRIME), 1995, "", 170, List.of(), List.of(), List.of(), 8.3),
+                new Movie("2", "Casino", "A casino", List.of(Genre.CRIME), 1995, "", 178, List.of(), List.of(), List.of(), 7.9),
+                new Movie("3", "Se7en", "A heist", List.of(Genre.CRIME), 1995, "", 127, List.of(), List.of(), List.of(), 8.6),
+                new Movie("4", "Ronin", "A heist", List.of(Genre.ACTION), 1998, "", 122, List.of(), List.of(), List.of(), 7.2));
+
+        // When
+        List<Movie> result = homeController.applyFilters(Genre.CRIME, "heist", "1995", "8");
+
+        // Then
+        assertEquals(List.of("Heat", "Se7en"), result.stream().map(Movie::getTitle).toList());
+    }
+
+
+
+    @Test
+    void filter_click_in_local_mode_is_answered_from_the_loaded_catalog() {
+        // Given
+        homeController.queryMode = QueryMode.LOCAL;
+        homeController.initializeStateWithDummyMovies();
+        homeController.observableMovies.clear();
+
+        // When
+        homeController.handleFilterButtonClick();
+
+        // Then
+        assertEquals(homeController.allMovies, homeController.observableMovies);
+    }
+
+
+
+    @Test
+    void unknown_query_mode_falls_back_to_snapshot() {
+        // When & Then
+        assertEquals(QueryMode.REMOTE, HomeController.parseQueryMode(" remote "));
+        assertEquals(QueryMode.SNAPSHOT, HomeController.parseQueryMode("remtoe"));
+        assertEquals(QueryMode.SNAPSHOT, HomeController.parseQueryMode(null));
+    }
+
+
+
     @Test
     void toggle_sort_state_should_change_state_correctly() {
         // Given
@@ -212,6 +290,47 @@ class HomeControllerTest {
 
 
 
+    @Test
+    void toggling_the_direction_reverses_the_sorted_list_without_sorting_again() {
+        // Given
+        homeController.allMovies = List.of(
+                new Movie("Heat", "Description", List.of()),
+                new Movie("Alien", "Description", List.of()),
+                new Movie("Casino", "Description", List.of()));
+        homeController.observableMovies.setAll(homeController.allMovies);
+        homeController.sortState = SortState.NONE;
+        homeController.handleSortButtonClick();
+        int sortedVersion = homeController.observableMovies.getVersion();
+
+        // When
+        homeController.handleSortButtonClick();
+
+        // Then
+        assertEquals(List.of("Heat", "Casino", "Alien"), homeController.observableMovies.stream().map(Movie::getTitle).toList());
+        assertEquals(sortedVersion, homeController.observableMovies.getVersion());
+        assertTrue(homeController.observableMovies.isReversed());
+    }
+
+
+
+    @Test
+    void movies_can_be_sorted_by_rating() {
+        // Given
+        homeController.observableMovies.setAll(
+                new Movie("1", "Good", "", List.of(), 2000, "", 100, List.of(), List.of(), List.of(), 8.1),
+                new Movie("2", "Bad", "", List.of(), 2000, "", 100, List.of(), List.of(), List.of(), 3.2),
+                new Movie("3", "Okay", "", List.of(), 2000, "", 100, List.of(), List.of(), List.of(), 6.0));
+        homeController.sortField = SortField.RATING;
+
+        // When
+        homeController.sortMovies(SortState.DESCENDING);
+
+        // Then
+        assertEquals(List.of("Good", "Okay", "Bad"), homeController.observableMovies.stream().map(Movie::getTitle).toList());
+    }
+
+
+
     @Test
     void sortState_changes_to_ascending_when_initial_state_is_none() {
         // Given
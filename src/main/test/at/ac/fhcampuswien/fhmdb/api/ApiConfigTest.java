@@ -0,0 +1,67 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiConfigTest {
+
+    @Test
+    void defaults_point_to_the_course_server() {
+        // Given
+        ApiConfig config = new ApiConfig(new Properties());
+
+        // When
+        OkHttpClient client = config.newClient();
+
+        // Then
+        assertEquals("https://prog2.fh-campuswien.ac.at/movies", config.getBaseUrl());
+        assertEquals(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1), client.protocols());
+        assertEquals("br", config.getCompression());
+        assertEquals(config.getFailureBudgetMillis(), client.callTimeoutMillis());
+    }
+
+
+
+    @Test
+    void properties_override_the_defaults() {
+        // Given
+        Properties properties = new Properties();
+        properties.setProperty("fhmdb.api.baseUrl", "http://localhost:8080/movies");
+        properties.setProperty("fhmdb.api.connectTimeoutMillis", "250");
+        properties.setProperty("fhmdb.api.readTimeoutMillis", "1000");
+        properties.setProperty("fhmdb.api.callTimeoutMillis", "3000");
+        properties.setProperty("fhmdb.api.http2", "false");
+        properties.setProperty("fhmdb.api.compression", "GZIP");
+
+        // When
+        ApiConfig config = new ApiConfig(properties);
+        OkHttpClient client = config.newClient();
+
+        // Then
+        assertEquals("http://localhost:8080/movies", config.getBaseUrl());
+        assertEquals(Duration.ofMillis(250), config.getConnectTimeout());
+        assertEquals(1000, client.readTimeoutMillis());
+        assertEquals(3000, client.callTimeoutMillis());
+        assertEquals(List.of(Protocol.HTTP_1_1), client.protocols());
+        assertEquals("gzip", config.getCompression());
+    }
+
+
+
+    @Test
+    void unknown_compression_is_rejected() {
+        // Given
+        Properties properties = new Properties();
+        properties.setProperty("fhmdb.api.compression", "zstd");
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> new ApiConfig(properties));
+    }
+}
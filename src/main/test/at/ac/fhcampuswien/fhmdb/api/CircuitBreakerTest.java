@@ -0,0 +1,74 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private long now = 0;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(3, 1_000, () -> now);
+
+
+
+    @Test
+    void opens_after_the_threshold_of_failures_in_a_row() {
+        // Given
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess(); // resets the count
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+
+        // When
+        breaker.recordFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+
+
+    @Test
+    void lets_a_single_trial_through_after_the_open_time_and_closes_on_success() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        now = 1_000;
+
+        // When
+        boolean trial = breaker.allowRequest();
+        boolean second = breaker.allowRequest();
+        breaker.recordSuccess();
+
+        // Then
+        assertTrue(trial);
+        assertFalse(second);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+
+
+    @Test
+    void failed_trial_opens_the_breaker_again() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        now = 1_000;
+        breaker.allowRequest();
+
+        // When
+        breaker.recordFailure();
+        now = 1_500;
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+}
@@ -0,0 +1,100 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieApiTest {
+
+    private static final String TWO_MOVIES = """
+            [
+              {"id": "1", "title": "The Godfather", "description": "The aging patriarch of an organized crime dynasty.",
+               "genres": ["DRAMA", "CRIME"], "releaseYear": 1972, "imgUrl": "https://example.org/godfather.jpg",
+               "lengthInMinutes": 175, "directors": ["Francis Ford Coppola"], "writers": ["Mario Puzo"],
+               "mainCast": ["Marlon Brando", "Al Pacino"], "rating": 9.2},
+              {"id": "2", "title": "Up", "description": "A balloon house.", "genres": ["ANIMATION"],
+               "releaseYear": 2009, "imgUrl": "", "lengthInMinutes": 96, "directors": [], "writers": [],
+               "mainCast": [], "rating": 8.3}
+            ]
+            """;
+
+
+
+    @Test
+    void read_movies_decodes_all_fields() throws Exception {
+        // When
+        List<Movie> movies = MovieApi.readMovies(new StringReader(TWO_MOVIES), null);
+
+        // Then
+        assertEquals(2, movies.size());
+        Movie godfather = movies.get(0);
+        assertEquals("1", godfather.getId());
+        assertEquals("The Godfather", godfather.getTitle());
+        assertEquals(List.of(Genre.CRIME, Genre.DRAMA), godfather.getGenres(), "genres come in Genre order");
+        assertEquals(1972, godfather.getReleaseYear());
+        assertEquals(175, godfather.getLengthInMinutes());
+        assertEquals(List.of("Marlon Brando", "Al Pacino"), godfather.getMainCast());
+        assertEquals(9.2, godfather.getRating());
+    }
+
+
+
+    @Test
+    void read_movies_hands_every_movie_to_the_batch_consumer() throws Exception {
+        // Given
+        List<Movie> streamed = new ArrayList<>();
+
+        // When
+        List<Movie> movies = MovieApi.readMovies(new StringReader(TWO_MOVIES), streamed::addAll);
+
+        // Then
+        assertEquals(movies, streamed);
+    }
+
+
+
+    @Test
+    void read_movies_of_empty_array_returns_empty_list() throws Exception {
+        // When
+        List<Movie> movies = MovieApi.readMovies(new StringReader("[]"), batch -> fail("no batch expected"));
+
+        // Then
+        assertTrue(movies.isEmpty());
+    }
+
+
+
+    @Test
+    void read_window_skips_the_movies_before_it_and_stops_after_it() throws Exception {
+        // When
+        List<Movie> second = MovieApi.readWindow(new StringReader(TWO_MOVIES), 1, 5);
+        List<Movie> first = MovieApi.readWindow(new StringReader(TWO_MOVIES), 0, 1);
+        List<Movie> afterTheEnd = MovieApi.readWindow(new StringReader(TWO_MOVIES), 2, 5);
+
+        // Then
+        assertEquals(List.of("Up"), second.stream().map(Movie::getTitle).toList());
+        assertEquals(List.of("The Godfather"), first.stream().map(Movie::getTitle).toList());
+        assertTrue(afterTheEnd.isEmpty());
+    }
+
+
+
+    @Test
+    void equivalent_parameters_give_the_same_url() {
+        // When
+        String plain = MovieApi.normalizedUrl(null, Genre.DRAMA, "2016", "7");
+        String padded = MovieApi.normalizedUrl("  ", Genre.DRAMA, " 2016 ", "7.0");
+
+        // Then
+        assertEquals(plain, padded);
+        assertEquals("https://prog2.fh-campuswien.ac.at/movies?genre=DRAMA&releaseYear=2016&rating=7&", plain);
+    }
+
+}
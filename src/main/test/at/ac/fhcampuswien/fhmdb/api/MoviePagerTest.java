@@ -0,0 +1,61 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoviePagerTest {
+
+    private final List<Integer> requestedOffsets = new ArrayList<>();
+
+    // a result of 5 movies
+    private CompletableFuture<List<Movie>> load(int offset, int limit) {
+        requestedOffsets.add(offset);
+        List<Movie> window = new ArrayList<>();
+        for (int i = offset; i < Math.min(5, offset + limit); i++) {
+            window.add(new Movie("Movie " + i, "", List.of()));
+        }
+        return CompletableFuture.completedFuture(window);
+    }
+
+
+
+    @Test
+    void next_window_is_prefetched_when_one_is_handed_out() throws Exception {
+        // Given
+        MoviePager pager = new MoviePager(this::load, 2);
+
+        // When
+        List<Movie> first = pager.next().get();
+
+        // Then
+        assertEquals(2, first.size());
+        assertEquals(List.of(0, 2), requestedOffsets);
+    }
+
+
+
+    @Test
+    void pager_stops_after_the_short_last_window() throws Exception {
+        // Given
+        MoviePager pager = new MoviePager(this::load, 2);
+
+        // When
+        List<String> titles = new ArrayList<>();
+        while (pager.hasMore()) {
+            pager.next().get().forEach(movie -> titles.add(movie.getTitle()));
+        }
+
+        // Then
+        assertEquals(List.of("Movie 0", "Movie 1", "Movie 2", "Movie 3", "Movie 4"), titles);
+        assertEquals(List.of(0, 2, 4), requestedOffsets);
+        assertTrue(pager.next().get().isEmpty());
+    }
+
+}
@@ -0,0 +1,165 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+
+
+    @Test
+    void stored_response_is_served_from_memory() throws Exception {
+        // Given
+        ResponseCache cache = new ResponseCache(cacheDir, 1024, 4096);
+        cache.put("url", "\"v1\"", null, "[]".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        ResponseCache.Entry entry = cache.get("url");
+
+        // Then
+        assertEquals("\"v1\"", entry.getEtag());
+        assertEquals("[]", new String(entry.openBody().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(1, cache.getMemoryHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+
+
+    @Test
+    void stored_response_survives_a_restart_on_disk() throws Exception {
+        // Given
+        new ResponseCache(cacheDir, 1024, 4096).put("url", null, "Tue, 01 Oct 2024 10:00:00 GMT", new byte[]{1, 2, 3});
+        ResponseCache restarted = new ResponseCache(cacheDir, 1024, 4096);
+
+        // When
+        ResponseCache.Entry entry = restarted.get("url");
+
+        // Then
+        assertArrayEquals(new byte[]{1, 2, 3}, entry.openBody().readAllBytes());
+        assertEquals("Tue, 01 Oct 2024 10:00:00 GMT", entry.getLastModified());
+        assertEquals(1, restarted.getDiskHitCount());
+    }
+
+
+
+    @Test
+    void lookup_on_disk_reads_the_body_only_when_it_is_opened() throws Exception {
+        // Given
+        new ResponseCache(cacheDir, 1024, 4096).put("url", "\"v1\"", null, new byte[]{1, 2, 3});
+        ResponseCache restarted = new ResponseCache(cacheDir, 1024, 4096);
+        ResponseCache.Entry entry = restarted.get("url");
+
+        // When
+        new ResponseCache(cacheDir, 1024, 4096).put("url", "\"v2\"", null, new byte[]{4, 5});
+
+        // Then
+        assertEquals("\"v1\"", entry.getEtag());
+        assertThrows(IOException.class, entry::openBody, "the file holds another response by now");
+        assertSame(entry, restarted.get("url"), "the header is read once");
+    }
+
+
+
+    @Test
+    void streamed_response_replaces_the_cached_one_only_when_committed() throws Exception {
+        // Given
+        ResponseCache cache = new ResponseCache(cacheDir, 1024, 4096);
+        cache.put("url", "\"v1\"", null, new byte[]{1, 2, 3});
+
+        // When
+        try (ResponseCache.Store aborted = cache.store("url", "\"v2\"", null)) {
+            aborted.write(new byte[]{4, 5});
+        }
+        ResponseCache.Entry afterAbort = cache.get("url");
+        try (ResponseCache.Store committed = cache.store("url", "\"v3\"", null)) {
+            committed.write(new byte[]{6, 7});
+            committed.commit();
+        }
+
+        // Then
+        assertEquals("\"v1\"", afterAbort.getEtag());
+        ResponseCache.Entry entry = new ResponseCache(cacheDir, 1024, 4096).get("url");
+        assertEquals("\"v3\"", entry.getEtag());
+        assertArrayEquals(new byte[]{6, 7}, entry.openBody().readAllBytes());
+        assertEquals("\"v3\"", cache.get("url").getEtag(), "the body held in memory is outdated");
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(1, files.count(), "no temp file is left");
+        }
+    }
+
+
+
+    @Test
+    void streamed_response_small_enough_is_kept_in_memory_as_well() throws Exception {
+        // Given
+        ResponseCache cache = new ResponseCache(cacheDir, 4, 4096);
+
+        // When
+        try (ResponseCache.Store small = cache.store("small", null, null)) {
+            small.write(new byte[]{1, 2, 3});
+            small.commit();
+        }
+        try (ResponseCache.Store large = cache.store("large", null, null)) {
+            large.write(new byte[]{1, 2, 3});
+            large.write(new byte[]{4, 5});
+            large.commit();
+        }
+
+        // Then
+        assertArrayEquals(new byte[]{1, 2, 3}, cache.get("small").openBody().readAllBytes());
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, cache.get("large").openBody().readAllBytes());
+        assertEquals(1, cache.getMemoryHitCount());
+        assertEquals(1, cache.getDiskHitCount());
+        assertEquals(3, cache.getMemoryBytes());
+    }
+
+
+
+    @Test
+    void removed_response_is_gone_from_both_tiers() throws Exception {
+        // Given
+        ResponseCache cache = new ResponseCache(cacheDir, 1024, 4096);
+        cache.put("url", "\"v1\"", null, new byte[]{1, 2, 3});
+
+        // When
+        cache.remove("url");
+
+        // Then
+        assertNull(cache.get("url"));
+        assertNull(new ResponseCache(cacheDir, 1024, 4096).get("url"));
+        assertEquals(0, cache.getMemoryBytes());
+    }
+
+
+
+    @Test
+    void memory_tier_evicts_least_recently_used_entries() {
+        // Given
+        ResponseCache cache = new ResponseCache(null, 10, 0);
+        cache.put("a", null, null, new byte[4]);
+        cache.put("b", null, null, new byte[4]);
+        cache.get("a");
+
+        // When
+        cache.put("c", null, null, new byte[4]);
+
+        // Then
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.getMemoryBytes());
+        assertEquals(1, cache.getMissCount());
+    }
+
+}
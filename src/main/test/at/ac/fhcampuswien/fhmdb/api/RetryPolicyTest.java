@@ -0,0 +1,38 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    @Test
+    void pauses_grow_up_to_the_cap_and_stop_after_the_last_attempt() {
+        // Given
+        RetryPolicy policy = new RetryPolicy(4, 100, 300, 60_000);
+
+        // When / Then
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.pauseMillis(1, 0) <= 100);
+            assertTrue(policy.pauseMillis(2, 0) <= 200);
+            assertTrue(policy.pauseMillis(3, 0) <= 300);
+        }
+        assertEquals(-1, policy.pauseMillis(4, 0));
+    }
+
+
+
+    @Test
+    void no_retry_once_the_failure_budget_is_used_up() {
+        // Given
+        RetryPolicy policy = new RetryPolicy(10, 100, 100, 1_000);
+
+        // When
+        long pause = policy.pauseMillis(1, 1_000);
+
+        // Then
+        assertEquals(-1, pause);
+        assertTrue(RetryPolicy.isRetryable(503));
+        assertFalse(RetryPolicy.isRetryable(404));
+    }
+}
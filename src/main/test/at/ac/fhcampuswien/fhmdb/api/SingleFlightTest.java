@@ -0,0 +1,102 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final List<CompletableFuture<List<Movie>>> calls = new ArrayList<>();
+
+    private CompletableFuture<List<Movie>> call() {
+        CompletableFuture<List<Movie>> call = new CompletableFuture<>();
+        calls.add(call);
+        return call;
+    }
+
+
+
+    @Test
+    void overlapping_requests_share_one_call_and_get_their_own_list() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(0, 4, 100);
+        CompletableFuture<List<Movie>> first = singleFlight.get("url", this::call);
+        CompletableFuture<List<Movie>> second = singleFlight.get("url", this::call);
+
+        // When
+        calls.get(0).complete(List.of(new Movie("Up", "", List.of())));
+
+        // Then
+        assertEquals(1, calls.size());
+        assertEquals(first.get(), second.get());
+        assertNotSame(first.get(), second.get());
+        assertEquals(1, singleFlight.getJoinedCount());
+    }
+
+
+
+    @Test
+    void result_is_reused_until_the_ttl_ran_out() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(60_000, 4, 100);
+        singleFlight.get("url", this::call);
+        calls.get(0).complete(List.of(new Movie("Up", "", List.of())));
+
+        // When
+        List<Movie> memoized = singleFlight.get("url", this::call).get();
+
+        // Then
+        assertEquals(1, calls.size());
+        assertEquals(1, memoized.size());
+        assertEquals(1, singleFlight.getMemoHitCount());
+    }
+
+
+
+    @Test
+    void large_and_expired_results_are_not_reused() throws Exception {
+        // Given
+        SingleFlight large = new SingleFlight(60_000, 4, 1);
+        large.get("url", this::call);
+        calls.get(0).complete(List.of(new Movie("Up", "", List.of()), new Movie("Heat", "", List.of())));
+        SingleFlight shortLived = new SingleFlight(1, 4, 100);
+        shortLived.get("url", this::call);
+        calls.get(1).complete(List.of(new Movie("Up", "", List.of())));
+        Thread.sleep(5);
+
+        // When
+        large.get("url", this::call);
+        shortLived.get("url", this::call);
+
+        // Then
+        assertEquals(4, calls.size());
+        assertEquals(0, large.getMemoHitCount());
+        assertEquals(0, shortLived.getMemoHitCount());
+    }
+
+
+
+    @Test
+    void call_is_only_cancelled_when_every_caller_cancelled() {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(0, 4, 100);
+        CompletableFuture<List<Movie>> first = singleFlight.get("url", this::call);
+        CompletableFuture<List<Movie>> second = singleFlight.get("url", this::call);
+
+        // When
+        first.cancel(true);
+        boolean cancelledAfterFirst = calls.get(0).isCancelled();
+        second.cancel(true);
+
+        // Then
+        assertFalse(cancelledAfterFirst);
+        assertTrue(calls.get(0).isCancelled());
+    }
+
+}
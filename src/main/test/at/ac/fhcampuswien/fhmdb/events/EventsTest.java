@@ -0,0 +1,88 @@
+package at.ac.fhcampuswien.fhmdb.events;
+
+import at.ac.fhcampuswien.fhmdb.index.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.mock.SyntheticCatalog;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventsTest {
+
+    // jfr/fhmdb.jfc of the project: looked for above the test classes, then above the basedir Maven passes
+    // (the working directory without it)
+    private static Path profileFile() throws Exception {
+        Path classes = Path.of(EventsTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        for (Path directory : List.of(classes, Path.of(System.getProperty("basedir", "")).toAbsolutePath())) {
+            for (; directory != null; directory = directory.getParent()) {
+                Path profile = directory.resolve("jfr").resolve("fhmdb.jfc");
+                if (Files.exists(profile)) {
+                    return profile;
+                }
+            }
+        }
+        throw new IllegalStateException("jfr/fhmdb.jfc not found above " + classes);
+    }
+
+    private static List<RecordedEvent> record(Runnable action) throws Exception {
+        Path file = Files.createTempFile("fhmdb", ".jfr");
+        try (Recording recording = new Recording(Configuration.create(profileFile()))) {
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        try {
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+
+
+    @Test
+    void filter_is_recorded_with_its_criteria_and_sizes() throws Exception {
+        // Given
+        MovieIndex index = new MovieIndex(SyntheticCatalog.create(1_000));
+
+        // When
+        List<Movie> result = index.filter("movie", Genre.DRAMA, null, 5.0);
+        List<RecordedEvent> events = record(() -> index.filter("movie", Genre.DRAMA, null, 5.0));
+
+        // Then
+        RecordedEvent filter = events.stream()
+                .filter(event -> event.getEventType().getName().equals("fhmdb.Filter"))
+                .findFirst().orElseThrow();
+        assertEquals("movie", filter.getString("query"));
+        assertEquals("DRAMA", filter.getString("genre"));
+        assertEquals(0, filter.getInt("releaseYear"));
+        assertEquals(5.0, filter.getDouble("ratingFrom"));
+        assertEquals(1_000, filter.getInt("inputSize"));
+        assertEquals(result.size(), filter.getInt("outputSize"));
+    }
+
+
+
+    @Test
+    void profile_enables_every_event_of_the_app() throws Exception {
+        // Given
+        Configuration profile = Configuration.create(profileFile());
+
+        // When / Then
+        for (Class<?> event : List.of(ApiRequestEvent.class, CatalogLoadEvent.class, CatalogParseEvent.class,
+                FilterEvent.class, SortEvent.class, CellUpdateEvent.class)) {
+            String name = event.getAnnotation(jdk.jfr.Name.class).value();
+            assertEquals("true", profile.getSettings().get(name + "#enabled"), name);
+        }
+    }
+}
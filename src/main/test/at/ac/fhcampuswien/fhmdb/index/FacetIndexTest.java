@@ -0,0 +1,87 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private List<Movie> movies;
+    private FacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        movies = new ArrayList<>();
+        movies.add(movie("Heat", List.of(Genre.CRIME, Genre.DRAMA), 1995, 8.3));
+        movies.add(movie("Alien", List.of(Genre.HORROR, Genre.SCIENCE_FICTION), 1979, 8.5));
+        movies.add(movie("Casino", List.of(Genre.CRIME, Genre.DRAMA), 1995, 8.2));
+        movies.add(movie("Jumanji", List.of(Genre.ADVENTURE, Genre.FAMILY), 1995, 7.1));
+        // more than 64 movies, so the bitmaps span several words
+        for (int i = 0; i < 100; i++) {
+            movies.add(movie("Filler " + i, List.of(Genre.COMEDY), 2000 + i % 3, 5.0));
+        }
+        facetIndex = new FacetIndex(movies);
+    }
+
+    private static Movie movie(String title, List<Genre> genres, int releaseYear, double rating) {
+        return new Movie(null, title, "", genres, releaseYear, "", 100, List.of(), List.of(), List.of(), rating);
+    }
+
+
+
+    @Test
+    void filter_combines_genre_year_and_rating() {
+        // When
+        List<Movie> result = facetIndex.filter(null, Genre.CRIME, 1995, 8.25);
+
+        // Then
+        assertEquals(List.of("Heat"), result.stream().map(Movie::getTitle).toList());
+    }
+
+
+
+    @Test
+    void filter_without_criteria_returns_all_movies_in_catalog_order() {
+        // When
+        List<Movie> result = facetIndex.filter(null, null, null, null);
+
+        // Then
+        assertEquals(movies, result);
+        assertSame(movies, new MovieIndex(movies).filter("", null, null, 0.0), "the index hands out the catalog itself");
+    }
+
+
+
+    @Test
+    void filter_is_restricted_to_the_candidates() {
+        // When
+        List<Movie> result = facetIndex.filter(new int[]{1, 3, 70}, null, null, 7.0);
+
+        // Then
+        assertEquals(List.of("Alien", "Jumanji"), result.stream().map(Movie::getTitle).toList());
+    }
+
+
+
+    @Test
+    void count_ignores_the_selection_of_its_own_facet() {
+        // When
+        FacetCounts counts = facetIndex.count(null, Genre.CRIME, 1995, null);
+
+        // Then
+        assertEquals(2, counts.getGenreCount(Genre.CRIME));
+        assertEquals(2, counts.getGenreCount(Genre.DRAMA));
+        assertEquals(1, counts.getGenreCount(Genre.FAMILY));
+        assertEquals(0, counts.getGenreCount(Genre.COMEDY));
+        assertEquals(2, counts.getYearCount(1995));
+        assertEquals(0, counts.getYearCount(2001));
+    }
+
+}
@@ -0,0 +1,97 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalSearchTest {
+
+    private SearchIndex searchIndex;
+    private IncrementalSearch incrementalSearch;
+
+    @BeforeEach
+    void setUp() {
+        List<Movie> movies = List.of(
+                movie("The Father", "A man refuses assistance from his daughter"),
+                movie("The Fabelmans", "A young man discovers film"),
+                movie("Theater Camp", "An eccentric group of staff"),
+                movie("CODA", "The only hearing member of a deaf family"));
+        searchIndex = new SearchIndex(movies);
+        incrementalSearch = new IncrementalSearch(searchIndex);
+    }
+
+    private static Movie movie(String title, String description) {
+        return new Movie(null, title, description, List.of(), 2020, "", 100, List.of(), List.of(), List.of(), 7.0);
+    }
+
+
+
+    @Test
+    void extended_query_finds_the_same_movies_as_a_fresh_search() {
+        // Given
+        incrementalSearch.searchPositions("the");
+
+        // When
+        int[] refined = incrementalSearch.searchPositions("The Fa");
+
+        // Then
+        assertArrayEquals(searchIndex.searchPositions("The Fa"), refined);
+        assertArrayEquals(new int[]{0, 1}, refined);
+    }
+
+
+
+    @Test
+    void going_back_to_a_shorter_query_returns_its_earlier_result() {
+        // Given
+        int[] the = incrementalSearch.searchPositions("the");
+        incrementalSearch.searchPositions("the f");
+
+        // When
+        int[] back = incrementalSearch.searchPositions("the");
+
+        // Then
+        assertSame(the, back);
+        assertArrayEquals(new int[]{0, 1, 2, 3}, back);
+        assertNull(incrementalSearch.searchPositions(""));
+    }
+
+
+
+    @Test
+    void short_query_words_are_looked_up_by_their_letters() {
+        // When & Then
+        assertArrayEquals(new int[]{0, 1, 2, 3}, searchIndex.searchPositions("a"));
+        assertArrayEquals(new int[]{0, 1, 3}, searchIndex.searchPositions("fa"), "family");
+        assertArrayEquals(new int[]{1, 3}, searchIndex.searchPositions("co"), "discovers");
+        assertArrayEquals(new int[0], searchIndex.searchPositions("qx"));
+    }
+
+
+
+    @Test
+    void union_merges_sorted_lists_without_duplicates() {
+        // Given
+        SearchIndex.IntList first = new SearchIndex.IntList();
+        SearchIndex.IntList second = new SearchIndex.IntList();
+        SearchIndex.IntList empty = new SearchIndex.IntList();
+        for (int value : new int[]{1, 4, 9}) {
+            first.add(value);
+        }
+        for (int value : new int[]{2, 4, 10, 11}) {
+            second.add(value);
+        }
+
+        // When
+        int[] union = SearchIndex.union(new SearchIndex.IntList[]{first, empty, second});
+
+        // Then
+        assertArrayEquals(new int[]{1, 2, 4, 9, 10, 11}, union);
+    }
+
+}
@@ -0,0 +1,75 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTest {
+
+    private final int previousThreshold = Parallel.getThreshold();
+    private final List<Integer> numbers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            numbers.add(random.nextInt(1_000));
+        }
+        Parallel.setThreshold(0); // everything above goes through the pool
+    }
+
+    @AfterEach
+    void tearDown() {
+        Parallel.setThreshold(previousThreshold);
+    }
+
+
+
+    @Test
+    void filter_keeps_the_sequential_order() {
+        // When
+        List<Integer> filtered = Parallel.filter(numbers, number -> number % 7 == 0);
+
+        // Then
+        assertEquals(numbers.stream().filter(number -> number % 7 == 0).toList(), filtered);
+    }
+
+
+
+    @Test
+    void sort_is_stable_like_list_sort() {
+        // Given
+        Comparator<Integer> byLastDigit = Comparator.comparing(number -> number % 10);
+        List<Integer> expected = new ArrayList<>(numbers);
+        expected.sort(byLastDigit);
+
+        // When
+        List<Integer> sorted = Parallel.sorted(numbers, byLastDigit);
+
+        // Then
+        assertEquals(expected, sorted);
+    }
+
+
+
+    @Test
+    void collect_merges_all_chunks() {
+        // When
+        TreeSet<Integer> distinct = Parallel.collect(numbers, TreeSet::new, TreeSet::add, (a, b) -> {
+            a.addAll(b);
+            return a;
+        });
+
+        // Then
+        assertEquals(new TreeSet<>(numbers), distinct);
+    }
+
+}
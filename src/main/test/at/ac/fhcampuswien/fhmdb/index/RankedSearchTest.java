@@ -0,0 +1,150 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.mock.SyntheticCatalog;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedSearchTest {
+
+    private List<Movie> movies;
+    private RankedSearch rankedSearch;
+
+    @BeforeEach
+    void setUp() {
+        movies = List.of(
+                movie("Dune", "A noble family becomes embroiled in a war for control over the desert planet Arrakis",
+                        "Denis Villeneuve", "Timothée Chalamet"),
+                movie("Blade Runner 2049", "A young blade runner discovers a secret, directed by Denis Villeneuve",
+                        "Denis Villeneuve", "Ryan Gosling"),
+                movie("Oppenheimer", "The story of the physicist who led the Manhattan Project",
+                        "Christopher Nolan", "Cillian Murphy"),
+                movie("La La Land", "A jazz pianist falls for an aspiring actress in Los Angeles",
+                        "Damien Chazelle", "Ryan Gosling"));
+        rankedSearch = new RankedSearch(movies);
+    }
+
+    private static Movie movie(String title, String description, String director, String actor) {
+        return new Movie(null, title, description, List.of(Genre.DRAMA), 2020, "", 100, List.of(director),
+                List.of(), List.of(actor), 7.0);
+    }
+
+    private List<String> titles(int[] positions) {
+        List<String> titles = new ArrayList<>();
+        for (int position : positions) {
+            titles.add(movies.get(position).getTitle());
+        }
+        return titles;
+    }
+
+
+
+    @Test
+    void words_in_the_title_rank_above_words_in_the_description() {
+        // When
+        int[] result = rankedSearch.search("blade runner ", movie -> true, 10);
+
+        // Then
+        assertEquals(List.of("Blade Runner 2049"), titles(result));
+        assertEquals(List.of("Blade Runner 2049", "Dune"), titles(rankedSearch.search("villeneuve ", movie -> true, 10)),
+                "the director of Dune only appears in its names, Blade Runner has him in the description as well");
+    }
+
+
+
+    @Test
+    void typos_and_unfinished_words_still_find_the_movie() {
+        // When & Then
+        assertEquals(List.of("Oppenheimer"), titles(rankedSearch.search("oppenhiemer ", movie -> true, 10)));
+        assertEquals(Set.of("La La Land", "Blade Runner 2049"), Set.copyOf(titles(rankedSearch.search("ryan gosl", movie -> true, 10))));
+        assertEquals(List.of("Oppenheimer"), titles(rankedSearch.search("manhatan projekt", movie -> true, 10)));
+        assertEquals(List.of(), titles(rankedSearch.search("xyz ", movie -> true, 10)));
+    }
+
+
+
+    @Test
+    void top_results_are_the_same_as_the_start_of_the_full_ranking() {
+        // Given
+        movies = SyntheticCatalog.create(5_000);
+        rankedSearch = new RankedSearch(movies);
+
+        // When & Then
+        for (String query : List.of("movie 123 words", "number 4711 of", "descripton 99", "actor 17 movie", "some more wrds")) {
+            int[] all = rankedSearch.search(query, movie -> true, movies.size());
+            int[] best = rankedSearch.search(query, movie -> true, 3);
+            assertArrayEquals(Arrays.copyOf(all, 3), best, query);
+        }
+    }
+
+
+
+    @Test
+    void index_filters_until_the_ranking_is_built_and_rebuilds_it_after_an_update() throws Exception {
+        // Given
+        MovieIndex index = new MovieIndex(movies);
+
+        // When
+        List<Movie> beforeBuild = index.rank("oppenhiemer ", null, null, null, 10);
+        index.prepareRanking().get();
+        List<Movie> built = index.rank("oppenhiemer ", null, null, null, 10);
+        index.update(List.of(movie("Barbie", "Barbie suffers a crisis", "Greta Gerwig", "Margot Robbie")), List.of());
+        index.prepareRanking().get();
+        List<Movie> updated = index.rank("barbi", null, null, null, 10);
+
+        // Then
+        assertEquals(List.of(), beforeBuild, "filtering does not tolerate the typo");
+        assertEquals("Oppenheimer", built.get(0).getTitle());
+        assertEquals("Barbie", updated.get(0).getTitle());
+    }
+
+
+
+    @Test
+    void windows_of_a_ranked_query_stay_with_the_ranking_it_started_with() throws Exception {
+        // Given
+        movies = SyntheticCatalog.create(3_000);
+        MovieIndex index = new MovieIndex(movies);
+        MovieIndex.RankedQuery beforeBuild = index.rankedQuery("movie 12", null, null, null);
+        index.prepareRanking().get();
+        MovieIndex.RankedQuery built = index.rankedQuery("movie 12", null, null, null);
+
+        // When
+        List<Movie> filtered = new ArrayList<>(beforeBuild.window(0, 50));
+        filtered.addAll(beforeBuild.window(50, 50));
+        List<Movie> ranked = new ArrayList<>(built.window(0, 50));
+        ranked.addAll(built.window(50, 50));
+
+        // Then
+        assertEquals(index.filter("movie 12", null, null, null).subList(0, 100), filtered);
+        assertEquals(index.rank("movie 12", null, null, null, 100), ranked);
+        assertEquals(List.of(), built.window(movies.size(), 50));
+    }
+
+
+
+    @Test
+    void facet_counts_of_a_ranked_query_count_every_movie_it_finds() throws Exception {
+        // Given
+        MovieIndex index = new MovieIndex(movies);
+        index.prepareRanking().get();
+
+        // When
+        FacetCounts counts = index.countRanked("gosling villneuve", null, null, null);
+
+        // Then
+        assertEquals(index.rank("gosling villneuve", null, null, null, 10).size(), counts.getGenreCount(Genre.DRAMA));
+        assertEquals(3, counts.getGenreCount(Genre.DRAMA));
+        assertEquals(0, index.count("gosling villneuve", null, null, null).getGenreCount(Genre.DRAMA),
+                "filtering looks for the whole text");
+    }
+}
@@ -0,0 +1,61 @@
+package at.ac.fhcampuswien.fhmdb.index;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.SortField;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortKeysTest {
+
+    private static Movie movie(String title, int releaseYear, double rating) {
+        return new Movie(null, title, "", List.of(), releaseYear, "", 100, List.of(), List.of(), List.of(), rating);
+    }
+
+    private static List<String> titles(List<Movie> movies, int[] order) {
+        List<String> titles = new ArrayList<>();
+        for (int position : order) {
+            titles.add(movies.get(position).getTitle());
+        }
+        return titles;
+    }
+
+
+
+    @Test
+    void titles_are_sorted_by_collation_not_by_char_value() {
+        // Given
+        List<Movie> catalog = List.of(movie("banana", 2000, 5), movie("Cherry", 2001, 6), movie("apple", 2002, 7));
+        SortKeys sortKeys = new SortKeys(catalog);
+
+        // When
+        int[] order = sortKeys.order(catalog, SortField.TITLE);
+
+        // Then
+        assertEquals(List.of("apple", "banana", "Cherry"), titles(catalog, order));
+        assertSame(order, sortKeys.order(catalog, SortField.TITLE), "order of the catalog should be cached");
+    }
+
+
+
+    @Test
+    void equal_keys_keep_their_order() {
+        // Given
+        List<Movie> catalog = List.of(movie("A", 2000, 7.5), movie("B", 1999, 7.5), movie("C", 2001, 6.1));
+        SortKeys sortKeys = new SortKeys(catalog);
+        List<Movie> selection = List.of(catalog.get(1), catalog.get(0), catalog.get(2));
+
+        // When
+        int[] byRating = sortKeys.order(selection, SortField.RATING);
+        int[] byYear = sortKeys.order(selection, SortField.RELEASE_YEAR);
+
+        // Then
+        assertEquals(List.of("C", "B", "A"), titles(selection, byRating));
+        assertEquals(List.of("B", "A", "C"), titles(selection, byYear));
+    }
+
+}
@@ -0,0 +1,69 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void percentiles_are_within_the_bucket_precision() {
+        // Given
+        Histogram histogram = new Histogram();
+
+        // When
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        // Then
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_500, histogram.getMean(), 1);
+        long p50 = histogram.getPercentile(0.5);
+        long p99 = histogram.getPercentile(0.99);
+        assertTrue(p50 >= 50_000_000 && p50 <= 50_000_000L * 33 / 32, "p50 " + p50);
+        assertTrue(p99 >= 99_000_000 && p99 <= 99_000_000L * 33 / 32, "p99 " + p99);
+    }
+
+
+
+    @Test
+    void small_values_are_exact_and_every_value_has_a_bucket() {
+        // Given
+        Histogram histogram = new Histogram();
+
+        // When
+        histogram.record(0);
+        histogram.record(7);
+        histogram.record(7);
+        histogram.record(Long.MAX_VALUE);
+
+        // Then
+        assertEquals(0, histogram.getPercentile(0.25));
+        assertEquals(7, histogram.getPercentile(0.75));
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(1));
+        assertEquals(3, histogram.getPowerOfTwoCounts()[0] + histogram.getPowerOfTwoCounts()[2]);
+        for (long value = 1; value > 0; value = value * 3 + 1) {
+            assertTrue(Histogram.upperBound(Histogram.bucket(value)) >= value);
+        }
+    }
+
+
+
+    @Test
+    void metrics_that_are_off_record_nothing() {
+        // Given
+        Timer timer = new Timer(false);
+        Counter counter = new Counter(false);
+
+        // When
+        timer.record(1_000);
+        timer.stop(0);
+        counter.increment();
+
+        // Then
+        assertEquals(0, timer.getHistogram().getCount());
+        assertEquals(0, counter.getCount());
+    }
+}
@@ -0,0 +1,95 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieTest {
+
+    @Test
+    void id_is_returned_exactly_as_given() {
+        // Given
+        String uuid = "81d317b0-29e5-4846-97a6-43c07f3edf4a";
+        String upperCaseUuid = uuid.toUpperCase();
+
+        // When
+        Movie first = new Movie(uuid, "A", "", List.of(), 0, "", 0, List.of(), List.of(), List.of(), 0);
+        Movie second = new Movie(upperCaseUuid, "B", "", List.of(), 0, "", 0, List.of(), List.of(), List.of(), 0);
+        Movie third = new Movie("42", "C", "", List.of(), 0, "", 0, List.of(), List.of(), List.of(), 0);
+
+        // Then
+        assertEquals(uuid, first.getId());
+        assertEquals(upperCaseUuid, second.getId());
+        assertEquals("42", third.getId());
+        assertSame(first.getId(), first.getId(), "the text of a UUID is made once");
+    }
+
+
+
+    @Test
+    void genres_are_stored_as_set_in_genre_order() {
+        // When
+        Movie movie = new Movie("Heat", "", List.of(Genre.THRILLER, Genre.CRIME, Genre.THRILLER));
+
+        // Then
+        assertEquals(List.of(Genre.CRIME, Genre.THRILLER), movie.getGenres());
+        assertTrue(movie.hasGenre(Genre.CRIME));
+        assertFalse(movie.hasGenre(Genre.DRAMA));
+    }
+
+
+
+    @Test
+    void people_names_are_shared_between_movies() {
+        // Given
+        List<String> cast = new ArrayList<>(List.of(new String("Al Pacino")));
+        List<String> otherCast = new ArrayList<>(List.of(new String("Al Pacino")));
+
+        // When
+        Movie heat = new Movie(null, "Heat", "", List.of(), 1995, "", 170, List.of(), List.of(), cast, 8.3);
+        Movie serpico = new Movie(null, "Serpico", "", List.of(), 1973, "", 130, List.of(), List.of(), otherCast, 7.7);
+
+        // Then
+        assertSame(heat.getMainCast().get(0), serpico.getMainCast().get(0));
+    }
+
+
+
+    @Test
+    void gson_reads_and_writes_the_api_json_shape() {
+        // Given
+        Gson gson = new Gson();
+        Movie movie = new Movie("1", "Heat", "A heist", List.of(Genre.CRIME), 1995, "img", 170,
+                List.of("Michael Mann"), List.of("Michael Mann"), List.of("Al Pacino"), 8.3);
+
+        // When
+        String json = gson.toJson(movie);
+        Movie copy = gson.fromJson(json, Movie.class);
+
+        // Then
+        assertTrue(json.contains("\"genres\":[\"CRIME\"]"));
+        assertEquals(movie.toString(), copy.toString());
+    }
+
+
+
+    @Test
+    void columnar_movies_return_the_same_values() {
+        // Given
+        List<Movie> movies = Movie.initializeMovies();
+
+        // When
+        ColumnarMovies columns = new ColumnarMovies(movies);
+
+        // Then
+        assertEquals(movies.size(), columns.size());
+        for (int i = 0; i < movies.size(); i++) {
+            assertEquals(movies.get(i).toString(), columns.get(i).toString());
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package at.ac.fhcampuswien.fhmdb.persistence;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+
+
+    @Test
+    void snapshot_restores_all_fields() throws Exception {
+        // Given
+        Path file = directory.resolve("catalog.bin");
+        Movie heat = new Movie("id-1", "Heat", "Für Los Angeles", List.of(Genre.CRIME, Genre.DRAMA), 1995,
+                "https://example.org/heat.jpg", 170, List.of("Michael Mann"), List.of("Michael Mann"),
+                List.of("Al Pacino", "Robert De Niro"), 8.3);
+        Movie unknown = new Movie("id-2", "Unknown", null, Arrays.asList(Genre.WAR, null), 0,
+                null, 0, null, List.of(), List.of("Al Pacino"), 0);
+
+        // When
+        CatalogSnapshot.write(List.of(heat, unknown), file);
+        List<Movie> restored = CatalogSnapshot.read(file);
+
+        // Then
+        assertEquals(2, restored.size());
+        assertEquals(heat.toString(), restored.get(0).toString());
+        assertEquals(unknown.toString(), restored.get(1).toString());
+        assertSame(restored.get(0).getMainCast().get(0), restored.get(1).getMainCast().get(0), "names are shared");
+    }
+
+
+
+    @Test
+    void reading_something_else_fails_with_io_exception() throws Exception {
+        // Given
+        Path file = directory.resolve("catalog.bin");
+        Files.writeString(file, "[{\"title\": \"not a snapshot\"}]");
+
+        // When & Then
+        assertThrows(IOException.class, () -> CatalogSnapshot.read(file));
+    }
+
+}
@@ -0,0 +1,125 @@
+package at.ac.fhcampuswien.fhmdb.persistence;
+
+import at.ac.fhcampuswien.fhmdb.index.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.mock.SyntheticCatalog;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<String> ids(List<Movie> movies) {
+        List<String> ids = new ArrayList<>();
+        for (Movie movie : movies) {
+            ids.add(movie.getId());
+        }
+        return ids;
+    }
+
+
+
+    @Test
+    void store_restores_all_fields() throws Exception {
+        // Given
+        Path file = directory.resolve("movies.store");
+        Movie heat = new Movie("id-1", "Heat", "Für Los Angeles", List.of(Genre.CRIME, Genre.DRAMA), 1995,
+                "https://example.org/heat.jpg", 170, List.of("Michael Mann"), List.of("Michael Mann"),
+                List.of("Al Pacino", "Robert De Niro"), 8.3);
+        Movie unknown = new Movie("id-2", "Unknown", null, Arrays.asList(Genre.WAR, null), 0,
+                null, 0, null, List.of(), List.of("Al Pacino"), 0);
+
+        // When
+        MovieStore.write(List.of(heat, unknown), file);
+        MovieStore store = MovieStore.open(file);
+
+        // Then
+        assertEquals(2, store.size());
+        List<Movie> restored = store.readAll();
+        assertEquals(heat.toString(), restored.get(0).toString());
+        assertEquals(unknown.toString(), restored.get(1).toString());
+        assertEquals(unknown.toString(), store.page(1, 10).get(0).toString());
+        assertEquals(List.of("id-1"), ids(store.query("los ang", null, null, null).window(0, 10)));
+    }
+
+
+
+    @Test
+    void queries_page_through_the_same_movies_as_the_index() throws Exception {
+        // Given
+        Path file = directory.resolve("movies.store");
+        List<Movie> catalog = SyntheticCatalog.create(2_000);
+        MovieStore.write(catalog, file);
+        MovieStore store = MovieStore.open(file);
+        MovieIndex index = new MovieIndex(catalog);
+        Movie some = catalog.get(123);
+        String word = "movie 12"; // words narrow down, the whole text decides
+
+        // When & Then
+        for (Object[] filter : new Object[][]{
+                {"", null, null, null},
+                {word, null, null, null},
+                {"", some.getGenres().get(0), null, null},
+                {"", null, some.getReleaseYear(), null},
+                {"", null, null, 7.0},
+                {word, some.getGenres().get(0), null, 5.0},
+                {"", some.getGenres().get(0), some.getReleaseYear(), 3.0}}) {
+            String query = (String) filter[0];
+            Genre genre = (Genre) filter[1];
+            Integer year = (Integer) filter[2];
+            Double rating = (Double) filter[3];
+            MovieStore.Query stored = store.query(query, genre, year, rating);
+            List<Movie> paged = new ArrayList<>();
+            for (List<Movie> window = stored.window(0, 50); !window.isEmpty(); window = stored.window(paged.size(), 50)) {
+                paged.addAll(window);
+            }
+            assertEquals(ids(index.filter(query, genre, year, rating)), ids(paged), Arrays.toString(filter));
+        }
+    }
+
+
+
+    @Test
+    void a_newer_catalog_goes_to_a_new_generation_and_the_old_one_is_deleted_at_the_next_start() throws Exception {
+        // Given
+        Path file = directory.resolve("movies.store");
+        MovieStore.write(SyntheticCatalog.create(10), file);
+        MovieStore open = MovieStore.open(file);
+
+        // When
+        MovieStore.write(SyntheticCatalog.create(20), file);
+        MovieStore reopened = MovieStore.open(file);
+
+        // Then
+        assertEquals(10, open.readAll().size(), "the mapped generation is left alone");
+        assertEquals(20, reopened.size());
+        assertFalse(Files.exists(directory.resolve("movies.store.1")));
+        assertTrue(Files.exists(directory.resolve("movies.store.2")));
+    }
+
+
+
+    @Test
+    void opening_something_else_fails_with_io_exception() throws Exception {
+        // Given
+        Path file = directory.resolve("movies.store");
+        Files.writeString(file, "[{\"title\": \"not a movie store\"}]");
+
+        // When & Then
+        assertThrows(IOException.class, () -> MovieStore.open(file));
+    }
+
+}
@@ -0,0 +1,115 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.api.CatalogChanges;
+import at.ac.fhcampuswien.fhmdb.index.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.SortField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSyncTest {
+
+    private final CatalogSync sync = new CatalogSync();
+    private List<Movie> catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = List.of(
+                movie("1", "The Father", "A man refuses assistance", Genre.DRAMA, 2020, 8.2),
+                movie("2", "CODA", "The only hearing member of a deaf family", Genre.DRAMA, 2021, 8.0),
+                movie("3", "Parasite", "Greed and class discrimination", Genre.THRILLER, 2019, 8.5));
+        sync.update(catalog, "v1");
+    }
+
+    private static Movie movie(String id, String title, String description, Genre genre, int releaseYear, double rating) {
+        return new Movie(id, title, description, List.of(genre), releaseYear, "", 100, List.of(), List.of(), List.of(), rating);
+    }
+
+    private static List<String> titles(List<Movie> movies) {
+        List<String> titles = new ArrayList<>();
+        for (Movie movie : movies) {
+            titles.add(movie.getTitle());
+        }
+        return titles;
+    }
+
+
+
+    @Test
+    void full_download_is_applied_as_the_difference_to_the_loaded_catalog() {
+        // Given
+        MovieIndex index = sync.getIndex();
+        index.filter("family", null, null, null); // remembered by the incremental search
+        List<Movie> fresh = List.of(
+                movie("1", "The Father", "A man refuses assistance", Genre.DRAMA, 2020, 8.2),
+                movie("2", "CODA", "A family of fishermen", Genre.DRAMA, 2021, 8.0),
+                movie("4", "Nomadland", "A woman and her family van", Genre.DRAMA, 2020, 7.3));
+
+        // When
+        CatalogDelta delta = sync.update(fresh, "v2");
+
+        // Then
+        assertEquals(List.of("Nomadland"), titles(delta.getAdded()));
+        assertEquals(List.of("CODA"), titles(delta.getChanged()));
+        assertEquals(List.of("3"), delta.getRemovedIds());
+        assertSame(index, sync.getIndex(), "the index should be updated, not rebuilt");
+        assertSame(catalog.get(0), index.getMovies().get(0), "an unchanged movie should stay the same object");
+        assertEquals(List.of("The Father", "CODA", "Nomadland"), titles(index.getMovies()));
+        assertEquals(List.of("CODA", "Nomadland"), titles(index.filter("family", null, null, null)));
+        assertEquals(List.of(), index.filter("greed", null, null, null));
+        assertEquals(2, index.count(null, null, null, null).getYearCount(2020));
+        assertEquals(0, index.count(null, null, null, null).getYearCount(2019));
+        assertEquals(List.of("The Father", "Nomadland"), titles(index.filter("", Genre.DRAMA, 2020, null)));
+        assertEquals("v2", sync.getVersion());
+    }
+
+
+
+    @Test
+    void changes_from_the_feed_leave_out_what_is_already_there() {
+        // Given
+        CatalogChanges changes = new CatalogChanges("v2",
+                List.of(movie("1", "The Father", "A man refuses assistance", Genre.DRAMA, 2020, 8.2),
+                        movie("5", "Aftersun", "A father and his daughter", Genre.DRAMA, 2022, 7.7)),
+                List.of("2", "unknown"));
+
+        // When
+        CatalogDelta delta = sync.apply(changes);
+
+        // Then
+        assertEquals(List.of("Aftersun"), titles(delta.getAdded()));
+        assertEquals(List.of(), delta.getChanged());
+        assertEquals(List.of("2"), delta.getRemovedIds());
+        MovieIndex index = sync.getIndex();
+        List<Movie> movies = index.getMovies();
+        int[] order = index.sortOrder(movies, SortField.TITLE);
+        List<String> sorted = new ArrayList<>();
+        for (int position : order) {
+            sorted.add(movies.get(position).getTitle());
+        }
+        assertEquals(List.of("Aftersun", "Parasite", "The Father"), sorted);
+        assertEquals(List.of("The Father", "Aftersun"), titles(index.filter("father", null, null, null)));
+    }
+
+
+
+    @Test
+    void removing_most_movies_builds_a_compact_index() {
+        // Given
+        MovieIndex index = sync.getIndex();
+
+        // When
+        sync.update(List.of(catalog.get(2)), "v2");
+
+        // Then
+        assertNotSame(index, sync.getIndex());
+        assertEquals(List.of("Parasite"), titles(sync.getIndex().getMovies()));
+        assertEquals(List.of("Parasite"), titles(sync.getIndex().filter("class", null, null, null)));
+    }
+}
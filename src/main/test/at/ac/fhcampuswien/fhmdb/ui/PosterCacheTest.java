@@ -0,0 +1,128 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import javafx.scene.image.Image;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PosterCacheTest {
+
+    // a 1x1 png
+    private static final byte[] PNG = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNk+M9QDwADhgGAWjR9awAAAABJRU5ErkJggg==");
+
+    @TempDir
+    Path posterDir;
+
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    private byte[] download(String url) {
+        downloads.incrementAndGet();
+        return PNG;
+    }
+
+
+
+    @Test
+    void poster_is_decoded_to_display_height_and_downloaded_once() throws Exception {
+        // Given
+        PosterCache cache = new PosterCache(null, 10_000, 0, 10, this::download);
+
+        // When
+        Image first = cache.get("poster").get();
+        Image second = cache.get("poster").get();
+
+        // Then
+        assertEquals(10, first.getHeight());
+        assertSame(first, second);
+        assertEquals(1, downloads.get());
+        assertEquals(0.5, cache.getHitRate());
+        assertEquals(10 * 10 * 4, cache.getMemoryBytes());
+    }
+
+
+
+    @Test
+    void memory_is_bounded_by_decoded_bytes() throws Exception {
+        // Given
+        PosterCache cache = new PosterCache(null, 1000, 0, 10, this::download);
+        cache.get("a").get();
+        cache.get("b").get();
+        cache.getIfPresent("a");
+
+        // When
+        cache.get("c").get();
+
+        // Then
+        assertNotNull(cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals(2, cache.size());
+        assertEquals(800, cache.getMemoryBytes());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+
+
+    @Test
+    void downloaded_poster_survives_a_restart_on_disk() throws Exception {
+        // Given
+        new PosterCache(posterDir, 10_000, 10_000, 10, this::download).get("poster").get();
+        PosterCache restarted = new PosterCache(posterDir, 10_000, 10_000, 10, this::download);
+
+        // When
+        Image poster = restarted.get("poster").get();
+
+        // Then
+        assertNotNull(poster);
+        assertEquals(1, downloads.get());
+        assertEquals(1, restarted.getDiskHitCount());
+    }
+
+
+
+    @Test
+    void a_poster_that_failed_is_not_asked_for_again_right_away() throws Exception {
+        // Given
+        PosterCache cache = new PosterCache(null, 10_000, 0, 10, url -> {
+            downloads.incrementAndGet();
+            throw new IOException("HTTP 404");
+        });
+
+        // When
+        Image first = cache.get("broken").get();
+        Image second = cache.get("broken").get();
+
+        // Then
+        assertNull(first);
+        assertNull(second);
+        assertEquals(1, downloads.get());
+    }
+
+
+
+    @Test
+    void disk_is_bounded_by_file_bytes() throws Exception {
+        // Given
+        PosterCache cache = new PosterCache(posterDir, 10_000, PNG.length * 2L, 10, this::download);
+
+        // When
+        for (String url : List.of("a", "b", "c", "d")) {
+            cache.get(url).get();
+        }
+
+        // Then
+        try (Stream<Path> files = Files.list(posterDir)) {
+            assertEquals(2, files.filter(path -> path.toString().endsWith(".poster")).count());
+        }
+    }
+
+}
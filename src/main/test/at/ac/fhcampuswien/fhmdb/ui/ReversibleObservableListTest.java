@@ -0,0 +1,87 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReversibleObservableListTest {
+
+    private final ReversibleObservableList<String> list = new ReversibleObservableList<>();
+    private final List<String> changes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        list.setAll(List.of("a", "b", "c", "d", "e"));
+        list.addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    changes.add("permutated");
+                } else {
+                    changes.add(change.getFrom() + "-" + change.getTo() + " removed " + change.getRemoved());
+                }
+            }
+        });
+    }
+
+
+
+    @Test
+    void update_reports_only_the_rows_that_changed() {
+        // When
+        list.update(List.of("a", "c", "x", "d"), Function.identity());
+
+        // Then
+        assertEquals(List.of("a", "c", "x", "d"), list);
+        assertEquals(List.of("1-1 removed [b]", "2-3 removed []", "4-4 removed [e]"), changes);
+    }
+
+
+
+    @Test
+    void update_with_the_same_elements_in_another_order_is_a_permutation() {
+        // When
+        list.update(List.of("e", "d", "c", "b", "a"), Function.identity());
+        list.update(List.of("e", "d", "c", "b", "a"), Function.identity());
+
+        // Then
+        assertEquals(List.of("e", "d", "c", "b", "a"), list);
+        assertEquals(List.of("permutated"), changes);
+    }
+
+
+
+    @Test
+    void reversing_keeps_the_elements_and_their_version() {
+        // Given
+        int version = list.getVersion();
+
+        // When
+        list.setReversed(true);
+
+        // Then
+        assertEquals(List.of("e", "d", "c", "b", "a"), list);
+        assertEquals(version, list.getVersion());
+        assertEquals(List.of("0-5 removed [a, b, c, d, e]"), changes);
+    }
+
+
+
+    @Test
+    void add_all_appends_at_the_end_in_one_change_in_either_direction() {
+        // When
+        list.addAll(List.of("f", "g"));
+        list.setReversed(true);
+        changes.clear();
+        list.addAll(List.of("z", "y"));
+
+        // Then
+        assertEquals(List.of("g", "f", "e", "d", "c", "b", "a", "z", "y"), list);
+        assertEquals(List.of("7-9 removed []"), changes);
+    }
+}